@@ -2,8 +2,10 @@ package io.leedsk1y.taskmanagerx_backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TaskManagerXBackendApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,85 @@
+package io.leedsk1y.taskmanagerx_backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Second-level cache regions of Hibernate, backed by Caffeine through JCache. Every region is created here
+ * with its size and time-to-live from spring.app, and Hibernate is set to fail on any region not listed,
+ * so a misspelled region name cannot silently fall back to an unbounded cache.
+ * Hit and miss counts are published by Hibernate's statistics as hibernate.second.level.cache.requests
+ * and hibernate.cache.query.requests.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    public static final String USERS_REGION = "users";
+    public static final String USER_ROLES_REGION = "users.roles";
+    public static final String ROLES_REGION = "roles";
+    public static final String USER_QUERIES_REGION = "user-queries";
+    public static final String ROLE_QUERIES_REGION = "role-queries";
+
+    @Value("${spring.app.userCacheMaxSize}")
+    private long userCacheMaxSize;
+
+    @Value("${spring.app.userCacheTtlMs}")
+    private long userCacheTtlMs;
+
+    @Value("${spring.app.roleCacheMaxSize}")
+    private long roleCacheMaxSize;
+
+    @Value("${spring.app.roleCacheTtlMs}")
+    private long roleCacheTtlMs;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // a manager of its own per application context, so contexts (e.g. in tests) never share regions
+        URI uri = URI.create(HibernateCacheConfig.class.getName() + "-" + UUID.randomUUID());
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(uri, HibernateCacheConfig.class.getClassLoader());
+
+        createRegion(cacheManager, USERS_REGION, userCacheMaxSize, userCacheTtlMs);
+        createRegion(cacheManager, USER_ROLES_REGION, userCacheMaxSize, userCacheTtlMs);
+        createRegion(cacheManager, USER_QUERIES_REGION, userCacheMaxSize, userCacheTtlMs);
+        createRegion(cacheManager, ROLES_REGION, roleCacheMaxSize, roleCacheTtlMs);
+        createRegion(cacheManager, ROLE_QUERIES_REGION, roleCacheMaxSize, roleCacheTtlMs);
+        createRegion(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, userCacheMaxSize, userCacheTtlMs);
+        // one entry per table; it must outlive every cached query result, so it never expires
+        createRegion(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 0, 0);
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * @param maxSize Maximum number of entries, or 0 for no limit.
+     * @param ttlMs Time to live after a write, or 0 for no expiry.
+     */
+    private static void createRegion(CacheManager cacheManager, String name, long maxSize, long ttlMs) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>()
+                .setStatisticsEnabled(true)
+                .setMaximumSize(maxSize > 0 ? OptionalLong.of(maxSize) : OptionalLong.empty())
+                .setExpireAfterWrite(ttlMs > 0 ? OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttlMs)) : OptionalLong.empty());
+
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -1,22 +1,32 @@
 package io.leedsk1y.taskmanagerx_backend.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.leedsk1y.taskmanagerx_backend.dto.CreateTaskRequestDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskPageResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.UserDetailedResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
 import io.leedsk1y.taskmanagerx_backend.models.Task;
 import io.leedsk1y.taskmanagerx_backend.services.AdminService;
+import io.leedsk1y.taskmanagerx_backend.services.TaskETags;
+import io.leedsk1y.taskmanagerx_backend.services.TaskExportService;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -43,6 +53,18 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getAllTasks());
     }
 
+    /**
+     * Retrieves one page of all tasks.
+     * @param limit Maximum number of tasks in the page.
+     * @param cursor Continuation token returned with the previous page.
+     * @return Page of tasks as TaskPageResponseDTO.
+     */
+    @GetMapping(value = "/tasks", params = "limit")
+    public ResponseEntity<TaskPageResponseDTO> getTaskPage(@RequestParam int limit,
+                                                           @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(adminService.getTaskPage(cursor, limit));
+    }
+
     /**
      * Retrieves a task by its ID.
      * @param id Task UUID.
@@ -74,6 +96,20 @@ public class AdminController {
         return ResponseEntity.ok(adminService.updateTaskByAdmin(id, updatedTask));
     }
 
+    /**
+     * Partially updates any task (JSON Merge Patch).
+     * @param id Task UUID.
+     * @param patch Fields to change; null clears optional fields.
+     * @param ifMatch Optional ETag of the task the patch is based on.
+     * @return Updated task as TaskResponseDTO.
+     */
+    @PatchMapping(value = "/tasks/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<TaskResponseDTO> patchTaskByAdmin(@PathVariable UUID id, @RequestBody JsonNode patch,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TaskResponseDTO task = adminService.patchTaskByAdmin(id, patch, ifMatch);
+        return ResponseEntity.ok().eTag(TaskETags.forTask(task.getId(), task.getVersion())).body(task);
+    }
+
     /**
      * Reassigns a task to a different user.
      * @param id Task UUID.
@@ -106,14 +142,72 @@ public class AdminController {
      * @param status Task status to filter by.
      * @param dueDateBefore Filter tasks due before this date.
      * @param dueDateAfter Filter tasks due after this date.
+     * @param sort Sort fields, e.g. {@code sort=userEmail&sort=dueDate,desc}.
      * @return List of filtered tasks as TaskResponseDTO.
      */
     @GetMapping("/tasks/filter")
     public ResponseEntity<List<TaskResponseDTO>> filterTasks(@RequestParam(required = false) String userEmail,
+                                                             @RequestParam(required = false) ETaskStatus status,
+                                                             @RequestParam(required = false) LocalDateTime dueDateBefore,
+                                                             @RequestParam(required = false) LocalDateTime dueDateAfter,
+                                                             Sort sort) {
+        return ResponseEntity.ok(adminService.filterTasksForAdmin(userEmail, status, dueDateBefore, dueDateAfter, sort));
+    }
+
+    /**
+     * Filters tasks based on parameters and returns one page.
+     * @param userEmail User email to filter by.
+     * @param status Task status to filter by.
+     * @param dueDateBefore Filter tasks due before this date.
+     * @param dueDateAfter Filter tasks due after this date.
+     * @param limit Maximum number of tasks in the page.
+     * @param cursor Continuation token returned with the previous page.
+     * @return Page of filtered tasks as TaskPageResponseDTO.
+     */
+    @GetMapping(value = "/tasks/filter", params = "limit")
+    public ResponseEntity<TaskPageResponseDTO> filterTaskPage(@RequestParam(required = false) String userEmail,
+                                                              @RequestParam(required = false) ETaskStatus status,
+                                                              @RequestParam(required = false) LocalDateTime dueDateBefore,
+                                                              @RequestParam(required = false) LocalDateTime dueDateAfter,
+                                                              @RequestParam int limit,
+                                                              @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(adminService.filterTaskPageForAdmin(userEmail, status, dueDateBefore, dueDateAfter, cursor, limit));
+    }
+
+    /**
+     * Exports all tasks, streamed as NDJSON or CSV.
+     * @param format Output format ("ndjson" or "csv").
+     * @param userEmail User email to filter by.
+     * @param status Task status to filter by.
+     * @param dueDateBefore Filter tasks due before this date.
+     * @param dueDateAfter Filter tasks due after this date.
+     * @return Streamed export of the matching tasks.
+     */
+    @GetMapping("/tasks/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(required = false) String userEmail,
                                                              @RequestParam(required = false) ETaskStatus status,
                                                              @RequestParam(required = false) LocalDateTime dueDateBefore,
                                                              @RequestParam(required = false) LocalDateTime dueDateAfter) {
-        return ResponseEntity.ok(adminService.filterTasksForAdmin(userEmail, status, dueDateBefore, dueDateAfter));
+        TaskExportService.Format exportFormat = TaskExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFormat.getFileName() + "\"")
+                .body(adminService.exportTasks(userEmail, status, dueDateBefore, dueDateAfter, exportFormat));
+    }
+
+    /**
+     * Searches all tasks by title and description.
+     * @param q Search text; every word must match a word of the task, or the start of one.
+     * @param userEmail User email to restrict the search to.
+     * @param limit Maximum number of results.
+     * @return ResponseEntity containing the matching tasks, best match first.
+     */
+    @GetMapping("/tasks/search")
+    public ResponseEntity<List<TaskResponseDTO>> searchTasks(@RequestParam String q,
+                                                             @RequestParam(required = false) String userEmail,
+                                                             @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(adminService.searchTasksForAdmin(q, userEmail, limit));
     }
 
     /**
@@ -128,6 +222,22 @@ public class AdminController {
         return ResponseEntity.ok(adminService.sortTasksForAdmin(sortBy, order));
     }
 
+    /**
+     * Sorts tasks based on given criteria and returns one page.
+     * @param sortBy Sorting parameter (e.g., "dueDate").
+     * @param order Sorting order ("asc" or "desc").
+     * @param limit Maximum number of tasks in the page.
+     * @param cursor Continuation token returned with the previous page.
+     * @return Page of sorted tasks as TaskPageResponseDTO.
+     */
+    @GetMapping(value = "/tasks/sort", params = "limit")
+    public ResponseEntity<TaskPageResponseDTO> sortTaskPage(@RequestParam(required = false) String sortBy,
+                                                            @RequestParam(defaultValue = "asc") String order,
+                                                            @RequestParam int limit,
+                                                            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(adminService.sortTaskPageForAdmin(sortBy, order, cursor, limit));
+    }
+
     /**
      * Retrieves all users.
      * @return List of all users as UserDetailedResponseDTO.
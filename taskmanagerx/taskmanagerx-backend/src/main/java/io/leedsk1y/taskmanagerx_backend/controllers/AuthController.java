@@ -1,5 +1,6 @@
 package io.leedsk1y.taskmanagerx_backend.controllers;
 
+import io.leedsk1y.taskmanagerx_backend.dto.AuthTokensDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.LoginRequestDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.RegisterRequestDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.UserDetailedResponseDTO;
@@ -8,6 +9,7 @@ import io.leedsk1y.taskmanagerx_backend.security.jwt.JwtUtils;
 import io.leedsk1y.taskmanagerx_backend.services.AuthService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +25,9 @@ import java.util.Map;
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
+    @Value("${spring.app.jwtRefreshExpirationMs}")
+    private long refreshExpirationMs;
+
     private final AuthService authService;
     private final JwtUtils jwtUtils;
 
@@ -40,6 +45,9 @@ public class AuthController {
     public ResponseEntity<?> register(@RequestBody RegisterRequestDTO request) {
         try {
             return ResponseEntity.ok(authService.registerUser(request));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(Map.of("message", e.getReason(), "status", false));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(Map.of("message", e.getMessage(), "status", false));
@@ -49,23 +57,57 @@ public class AuthController {
     /**
      * Authenticates the user with the provided email and password, generates a JWT token,
      * and sets the token in a cookie for further authentication.
+     * Repeated failures for the same email from the same client IP, from the same client IP overall, or for the
+     * same email from anywhere, are throttled with 429 Too Many Requests.
      * @param request The login request containing user credentials (email and password).
+     * @param httpRequest The HTTP request, used to determine the client IP.
      * @param response The HTTP response where the JWT token will be set in a cookie.
      * @return ResponseEntity with a success message if login is successful, or an error message with unauthorized status if credentials are incorrect.
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequestDTO request, HttpServletResponse response) {
+    public ResponseEntity<?> login(@RequestBody LoginRequestDTO request, HttpServletRequest httpRequest,
+                                   HttpServletResponse response) {
         try {
-            String jwtToken = authService.authenticateUser(request.getEmail(), request.getPassword());
-            CookieUtils.setJwtCookie(response, jwtToken);
+            AuthTokensDTO tokens = authService.authenticateUser(request.getEmail(), request.getPassword(),
+                    httpRequest.getRemoteAddr());
+            CookieUtils.setJwtCookie(response, tokens.getAccessToken());
+            CookieUtils.setRefreshCookie(response, tokens.getRefreshToken(), refreshExpirationMs);
 
             return ResponseEntity.ok(Map.of("message", "Login successful", "status", true));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .headers(e.getHeaders())
+                    .body(Map.of("message", e.getReason(), "status", false));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("message", "Bad credentials", "status", false));
         }
     }
 
+    /**
+     * Issues a new access token using the refresh token cookie and rotates the refresh token.
+     * Requires neither the password nor a valid access token.
+     * @param request The HTTP request containing the refresh token in cookies.
+     * @param response The HTTP response where the new tokens will be set in cookies.
+     * @return ResponseEntity with a success message, or an error message with unauthorized status
+     *         if the refresh token is missing, invalid, expired or reused.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(HttpServletRequest request, HttpServletResponse response) {
+        try {
+            AuthTokensDTO tokens = authService.refreshTokens(CookieUtils.getRefreshTokenFromCookies(request));
+            CookieUtils.setJwtCookie(response, tokens.getAccessToken());
+            CookieUtils.setRefreshCookie(response, tokens.getRefreshToken(), refreshExpirationMs);
+
+            return ResponseEntity.ok(Map.of("message", "Token refreshed", "status", true));
+        } catch (ResponseStatusException e) {
+            CookieUtils.clearJwtCookie(response);
+            CookieUtils.clearRefreshCookie(response);
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(Map.of("message", e.getReason(), "status", false));
+        }
+    }
+
     /**
      * Logs out the current user by invalidating the JWT token and clearing the authentication cookie.
      * @param request The HTTP request containing the JWT token in cookies.
@@ -109,15 +151,23 @@ public class AuthController {
     }
 
     /**
-     * Updates the authenticated user's password.
+     * Updates the authenticated user's password. Other sessions are signed out, and this one gets new token cookies.
      * @param passwordData A map containing old and new passwords.
+     * @param response The HTTP response where the new tokens will be set in cookies.
      * @return ResponseEntity with a success or error message.
      */
     @PutMapping("/me/password")
-    public ResponseEntity<?> updatePassword(@RequestBody Map<String, String> passwordData) {
+    public ResponseEntity<?> updatePassword(@RequestBody Map<String, String> passwordData,
+                                            HttpServletResponse response) {
         try {
-            authService.updatePassword(passwordData.get("oldPassword"), passwordData.get("newPassword"));
+            AuthTokensDTO tokens = authService.updatePassword(passwordData.get("oldPassword"),
+                    passwordData.get("newPassword"));
+            CookieUtils.setJwtCookie(response, tokens.getAccessToken());
+            CookieUtils.setRefreshCookie(response, tokens.getRefreshToken(), refreshExpirationMs);
             return ResponseEntity.ok(Map.of("message", "Password updated successfully"));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(Map.of("message", e.getReason()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("message", e.getMessage()));
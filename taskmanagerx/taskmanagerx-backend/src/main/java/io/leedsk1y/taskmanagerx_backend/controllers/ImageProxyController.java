@@ -1,11 +1,13 @@
 package io.leedsk1y.taskmanagerx_backend.controllers;
 
 import io.leedsk1y.taskmanagerx_backend.services.ImageProxyService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/proxy")
@@ -21,10 +23,14 @@ public class ImageProxyController {
      * Delegates the actual image fetching to the ImageService.
      *
      * @param url The URL of the image to fetch.
-     * @return A ResponseEntity containing the image or an error response if fetching fails.
+     * @param size Optional thumbnail size in pixels; the original image is returned if omitted.
+     * @param request The HTTP request, for its conditional headers.
+     * @return A ResponseEntity with the image and its caching headers, or 304 if the client's copy is current.
      */
     @GetMapping("/image")
-    public ResponseEntity<byte[]> fetchGoogleImage(@RequestParam String url) {
-        return imageService.fetchImage(url);
+    public ResponseEntity<StreamingResponseBody> fetchGoogleImage(@RequestParam String url,
+                                                                  @RequestParam(required = false) Integer size,
+                                                                  HttpServletRequest request) {
+        return imageService.fetchImage(url, size, request);
     }
 }
@@ -1,5 +1,6 @@
 package io.leedsk1y.taskmanagerx_backend.controllers;
 
+import io.leedsk1y.taskmanagerx_backend.dto.AuthTokensDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.UserDetailedResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.security.jwt.CookieUtils;
 import io.leedsk1y.taskmanagerx_backend.services.OAuth2Service;
@@ -22,6 +23,9 @@ public class OAuth2Controller {
     @Value("${spring.frontend.url}")
     private String frontendUrl;
 
+    @Value("${spring.app.jwtRefreshExpirationMs}")
+    private long refreshExpirationMs;
+
     private final OAuth2Service oAuth2Service;
 
     public OAuth2Controller(OAuth2Service oAuth2Service) {
@@ -39,7 +43,7 @@ public class OAuth2Controller {
     }
 
     /**
-     * Handles successful OAuth2 authentication and issues a JWT token.
+     * Handles successful OAuth2 authentication and issues a JWT token and a refresh token.
      * @param response The HTTP response object for setting the authentication cookie.
      * @param authentication The authentication object containing user details.
      * @throws IOException If an error occurs during redirection.
@@ -47,9 +51,10 @@ public class OAuth2Controller {
     @GetMapping("/success")
     public void handleOAuth2Success(HttpServletResponse response, Authentication authentication) throws IOException {
         try {
-            String jwtToken = oAuth2Service.handleOAuth2Authentication((OAuth2AuthenticationToken) authentication);
+            AuthTokensDTO tokens = oAuth2Service.handleOAuth2Authentication((OAuth2AuthenticationToken) authentication);
 
-            CookieUtils.setJwtCookie(response, jwtToken);
+            CookieUtils.setJwtCookie(response, tokens.getAccessToken());
+            CookieUtils.setRefreshCookie(response, tokens.getRefreshToken(), refreshExpirationMs);
 
             response.sendRedirect(frontendUrl + "/");
         } catch (RuntimeException e) {
@@ -1,25 +1,43 @@
 package io.leedsk1y.taskmanagerx_backend.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskBatchRequestDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskBatchResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskChangesResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskPageResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
 import io.leedsk1y.taskmanagerx_backend.models.Task;
+import io.leedsk1y.taskmanagerx_backend.services.TaskETags;
+import io.leedsk1y.taskmanagerx_backend.services.TaskExportService;
 import io.leedsk1y.taskmanagerx_backend.services.TaskService;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/tasks")
@@ -32,23 +50,78 @@ public class TaskController {
 
     /**
      * Retrieves tasks for the authenticated user.
+     * @param request Current request, checked for If-None-Match.
      * @return ResponseEntity containing a list of tasks.
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping
-    public ResponseEntity<List<TaskResponseDTO>> getUserTasks() {
-        return ResponseEntity.ok(taskService.getTasksForAuthenticatedUser());
+    public ResponseEntity<List<TaskResponseDTO>> getUserTasks(WebRequest request) {
+        return conditional(request, taskService.getTasksETagForAuthenticatedUser(),
+                taskService::getTasksForAuthenticatedUser);
+    }
+
+    /**
+     * Retrieves one page of tasks for the authenticated user.
+     * @param limit Maximum number of tasks in the page.
+     * @param cursor Continuation token returned with the previous page.
+     * @param request Current request, checked for If-None-Match.
+     * @return ResponseEntity containing the page of tasks.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(params = "limit")
+    public ResponseEntity<TaskPageResponseDTO> getUserTaskPage(@RequestParam int limit,
+                                                               @RequestParam(required = false) String cursor,
+                                                               WebRequest request) {
+        return conditional(request, taskService.getTasksETagForAuthenticatedUser(),
+                () -> taskService.getTaskPageForAuthenticatedUser(cursor, limit));
+    }
+
+    /**
+     * Retrieves the tasks created, updated or deleted since a sync token.
+     * @param since Token returned by the previous call; omit it to get all tasks and a first token.
+     * @return ResponseEntity containing the changes and the next token.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/changes")
+    public ResponseEntity<TaskChangesResponseDTO> getTaskChanges(@RequestParam(required = false) String since) {
+        return ResponseEntity.ok(taskService.getTaskChangesForAuthenticatedUser(since));
+    }
+
+    /**
+     * Searches the authenticated user's tasks by title and description.
+     * @param q Search text; every word must match a word of the task, or the start of one.
+     * @param limit Maximum number of results.
+     * @return ResponseEntity containing the matching tasks, best match first.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/search")
+    public ResponseEntity<List<TaskResponseDTO>> searchTasks(@RequestParam String q,
+                                                             @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(taskService.searchTasksForAuthenticatedUser(q, limit));
+    }
+
+    /**
+     * Streams change events for the authenticated user's tasks as Server-Sent Events.
+     * Each "tasks" event lists the changed and removed task IDs.
+     * @return SseEmitter kept open until it times out or the client disconnects.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents() {
+        return taskService.subscribeToTaskEventsForAuthenticatedUser();
     }
 
     /**
      * Retrieves a specific task by ID for the authenticated user.
      * @param id Task UUID.
+     * @param request Current request, checked for If-None-Match.
      * @return ResponseEntity containing the task details.
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/{id}")
-    public ResponseEntity<TaskResponseDTO> getTaskById(@PathVariable UUID id) {
-        return ResponseEntity.ok(taskService.getTaskByIdForAuthenticatedUser(id));
+    public ResponseEntity<TaskResponseDTO> getTaskById(@PathVariable UUID id, WebRequest request) {
+        return conditional(request, taskService.getTaskETagForAuthenticatedUser(id),
+                () -> taskService.getTaskByIdForAuthenticatedUser(id));
     }
 
     /**
@@ -74,6 +147,21 @@ public class TaskController {
         return ResponseEntity.ok(taskService.updateTaskForAuthenticatedUser(id, updatedTask));
     }
 
+    /**
+     * Partially updates a task for the authenticated user (JSON Merge Patch).
+     * @param id Task UUID.
+     * @param patch Fields to change; null clears optional fields.
+     * @param ifMatch Optional ETag of the task the patch is based on.
+     * @return ResponseEntity containing the updated task details.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<TaskResponseDTO> patchTask(@PathVariable UUID id, @RequestBody JsonNode patch,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TaskResponseDTO task = taskService.patchTaskForAuthenticatedUser(id, patch, ifMatch);
+        return ResponseEntity.ok().eTag(TaskETags.forTask(task.getId(), task.getVersion())).body(task);
+    }
+
     /**
      * Updates the status of a task for the authenticated user.
      * @param id Task UUID.
@@ -98,29 +186,127 @@ public class TaskController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Applies many task changes for the authenticated user in one transaction.
+     * @param request Creates, updates, status changes and deletes.
+     * @return ResponseEntity containing the result of every item.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/batch")
+    public ResponseEntity<TaskBatchResponseDTO> applyBatch(@RequestBody TaskBatchRequestDTO request) {
+        return ResponseEntity.ok(taskService.applyBatchForAuthenticatedUser(request));
+    }
+
     /**
      * Filters tasks for the authenticated user based on status and due date range.
      * @param status Task status.
      * @param dueDateBefore Filter tasks due before this date.
      * @param dueDateAfter Filter tasks due after this date.
+     * @param sort Sort fields, e.g. {@code sort=dueDate,desc&sort=title}.
+     * @param request Current request, checked for If-None-Match.
      * @return ResponseEntity containing a list of filtered tasks.
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/filter")
     public ResponseEntity<List<TaskResponseDTO>> filterTasks(@RequestParam(required = false) ETaskStatus status,
+                                                             @RequestParam(required = false) LocalDateTime dueDateBefore,
+                                                             @RequestParam(required = false) LocalDateTime dueDateAfter,
+                                                             Sort sort,
+                                                             WebRequest request) {
+        return conditional(request, taskService.getTasksETagForAuthenticatedUser(),
+                () -> taskService.filterTasksForAuthenticatedUser(status, dueDateBefore, dueDateAfter, sort));
+    }
+
+    /**
+     * Filters tasks for the authenticated user and returns one page.
+     * @param status Task status.
+     * @param dueDateBefore Filter tasks due before this date.
+     * @param dueDateAfter Filter tasks due after this date.
+     * @param limit Maximum number of tasks in the page.
+     * @param cursor Continuation token returned with the previous page.
+     * @param request Current request, checked for If-None-Match.
+     * @return ResponseEntity containing the page of filtered tasks.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/filter", params = "limit")
+    public ResponseEntity<TaskPageResponseDTO> filterTaskPage(@RequestParam(required = false) ETaskStatus status,
+                                                              @RequestParam(required = false) LocalDateTime dueDateBefore,
+                                                              @RequestParam(required = false) LocalDateTime dueDateAfter,
+                                                              @RequestParam int limit,
+                                                              @RequestParam(required = false) String cursor,
+                                                              WebRequest request) {
+        return conditional(request, taskService.getTasksETagForAuthenticatedUser(),
+                () -> taskService.filterTaskPageForAuthenticatedUser(status, dueDateBefore, dueDateAfter, cursor, limit));
+    }
+
+    /**
+     * Exports the authenticated user's tasks, streamed as NDJSON or CSV.
+     * @param format Output format ("ndjson" or "csv").
+     * @param status Task status.
+     * @param dueDateBefore Filter tasks due before this date.
+     * @param dueDateAfter Filter tasks due after this date.
+     * @return ResponseEntity streaming the exported tasks.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(required = false) ETaskStatus status,
                                                              @RequestParam(required = false) LocalDateTime dueDateBefore,
                                                              @RequestParam(required = false) LocalDateTime dueDateAfter) {
-        return ResponseEntity.ok(taskService.filterTasksForAuthenticatedUser(status, dueDateBefore, dueDateAfter));
+        TaskExportService.Format exportFormat = TaskExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFormat.getFileName() + "\"")
+                .body(taskService.exportTasksForAuthenticatedUser(status, dueDateBefore, dueDateAfter, exportFormat));
     }
 
     /**
      * Sorts tasks for the authenticated user based on due date.
      * @param order Sorting order ("asc" or "desc").
+     * @param request Current request, checked for If-None-Match.
      * @return ResponseEntity containing a list of sorted tasks.
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/sort")
-    public ResponseEntity<List<TaskResponseDTO>> sortTasks(@RequestParam(defaultValue = "asc") String order) {
-        return ResponseEntity.ok(taskService.sortTasksForAuthenticatedUser(order));
+    public ResponseEntity<List<TaskResponseDTO>> sortTasks(@RequestParam(defaultValue = "asc") String order,
+                                                           WebRequest request) {
+        return conditional(request, taskService.getTasksETagForAuthenticatedUser(),
+                () -> taskService.sortTasksForAuthenticatedUser(order));
+    }
+
+    /**
+     * Sorts tasks for the authenticated user based on due date and returns one page.
+     * @param order Sorting order ("asc" or "desc").
+     * @param limit Maximum number of tasks in the page.
+     * @param cursor Continuation token returned with the previous page.
+     * @param request Current request, checked for If-None-Match.
+     * @return ResponseEntity containing the page of sorted tasks.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/sort", params = "limit")
+    public ResponseEntity<TaskPageResponseDTO> sortTaskPage(@RequestParam(defaultValue = "asc") String order,
+                                                            @RequestParam int limit,
+                                                            @RequestParam(required = false) String cursor,
+                                                            WebRequest request) {
+        return conditional(request, taskService.getTasksETagForAuthenticatedUser(),
+                () -> taskService.sortTaskPageForAuthenticatedUser(order, cursor, limit));
+    }
+
+    /**
+     * Answers with 304 if the client's If-None-Match matches the ETag, otherwise loads the body.
+     * The ETag must be read before the body: a change in between then only costs one extra download later.
+     * @param request Current request.
+     * @param etag Current ETag of the resource.
+     * @param body Loads the response body.
+     * @return ResponseEntity with the ETag, and the body unless it is not modified.
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, String etag, Supplier<T> body) {
+        // "no-cache" instead of the default "no-store", so that browsers keep the body and revalidate it
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(body.get());
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package io.leedsk1y.taskmanagerx_backend.dto;
+
+import lombok.Getter;
+
+@Getter
+public class AuthTokensDTO {
+    private final String accessToken;
+    private final String refreshToken;
+
+    public AuthTokensDTO(String accessToken, String refreshToken) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+    }
+}
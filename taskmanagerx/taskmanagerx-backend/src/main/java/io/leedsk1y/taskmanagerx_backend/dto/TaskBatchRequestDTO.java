@@ -0,0 +1,44 @@
+package io.leedsk1y.taskmanagerx_backend.dto;
+
+import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class TaskBatchRequestDTO {
+    private List<Create> creates = new ArrayList<>();
+    private List<Update> updates = new ArrayList<>();
+    private List<StatusChange> statusChanges = new ArrayList<>();
+    private List<UUID> deletes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Create {
+        private String title;
+        private String description;
+        private LocalDateTime dueDate;
+    }
+
+    @Getter
+    @Setter
+    public static class Update {
+        private UUID id;
+        private String title;
+        private String description;
+        private ETaskStatus status;
+        private LocalDateTime dueDate;
+    }
+
+    @Getter
+    @Setter
+    public static class StatusChange {
+        private UUID id;
+        private ETaskStatus status;
+    }
+}
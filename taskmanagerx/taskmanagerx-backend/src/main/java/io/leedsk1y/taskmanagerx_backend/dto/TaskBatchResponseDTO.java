@@ -0,0 +1,48 @@
+package io.leedsk1y.taskmanagerx_backend.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+public class TaskBatchResponseDTO {
+    private final List<ItemResult> creates;
+    private final List<ItemResult> updates;
+    private final List<ItemResult> statusChanges;
+    private final List<ItemResult> deletes;
+
+    public TaskBatchResponseDTO(List<ItemResult> creates, List<ItemResult> updates,
+                                List<ItemResult> statusChanges, List<ItemResult> deletes) {
+        this.creates = creates;
+        this.updates = updates;
+        this.statusChanges = statusChanges;
+        this.deletes = deletes;
+    }
+
+    /**
+     * Outcome of one item, at the same index as in the request list.
+     */
+    @Getter
+    public static class ItemResult {
+        private final int index;
+        private final UUID id;
+        private final boolean success;
+        private final String error; // null on success
+
+        private ItemResult(int index, UUID id, boolean success, String error) {
+            this.index = index;
+            this.id = id;
+            this.success = success;
+            this.error = error;
+        }
+
+        public static ItemResult ok(int index, UUID id) {
+            return new ItemResult(index, id, true, null);
+        }
+
+        public static ItemResult failed(int index, UUID id, String error) {
+            return new ItemResult(index, id, false, error);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.leedsk1y.taskmanagerx_backend.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+public class TaskChangesResponseDTO {
+    private final List<TaskResponseDTO> changed; // created or updated, in the order they last changed
+    private final List<UUID> deleted; // deleted or no longer owned by the user
+    private final String nextToken; // pass as "since" to get the changes after this response
+
+    public TaskChangesResponseDTO(List<TaskResponseDTO> changed, List<UUID> deleted, String nextToken) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.nextToken = nextToken;
+    }
+}
@@ -0,0 +1,16 @@
+package io.leedsk1y.taskmanagerx_backend.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class TaskPageResponseDTO {
+    private final List<TaskResponseDTO> items;
+    private final String nextCursor; // null on the last page
+
+    public TaskPageResponseDTO(List<TaskResponseDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
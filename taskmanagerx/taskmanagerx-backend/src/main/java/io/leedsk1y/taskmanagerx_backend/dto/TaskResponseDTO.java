@@ -14,7 +14,9 @@ public class TaskResponseDTO {
     private final String description;
     private final ETaskStatus status;
     private final LocalDateTime dueDate;
+    private final LocalDateTime createdAt;
     private final UUID userId;
+    private final Long version;
     private final UserBasicDTO user; // included only if requested
 
     public TaskResponseDTO(Task task, boolean includeUser) {
@@ -23,7 +25,38 @@ public class TaskResponseDTO {
         this.description = task.getDescription();
         this.status = task.getStatus();
         this.dueDate = task.getDueDate();
+        this.createdAt = task.getCreatedAt();
         this.userId = task.getUser().getId();
+        this.version = task.getVersion();
         this.user = includeUser ? new UserBasicDTO(task.getUser()) : null;
     }
+
+    // projection constructors, used by TaskRepository to build DTOs straight from the query result
+
+    public TaskResponseDTO(UUID id, String title, String description, ETaskStatus status, LocalDateTime dueDate,
+                           LocalDateTime createdAt, UUID userId, Long version) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
+        this.dueDate = dueDate;
+        this.createdAt = createdAt;
+        this.userId = userId;
+        this.version = version;
+        this.user = null;
+    }
+
+    public TaskResponseDTO(UUID id, String title, String description, ETaskStatus status, LocalDateTime dueDate,
+                           LocalDateTime createdAt, UUID userId, Long version, String userName, String userEmail,
+                           String userProfileImage) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
+        this.dueDate = dueDate;
+        this.createdAt = createdAt;
+        this.userId = userId;
+        this.version = version;
+        this.user = new UserBasicDTO(userId, userName, userEmail, userProfileImage);
+    }
 }
@@ -18,4 +18,11 @@ public class UserBasicDTO {
         this.email = user.getEmail();
         this.profileImage = user.getProfileImage();
     }
+
+    public UserBasicDTO(UUID id, String name, String email, String profileImage) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.profileImage = profileImage;
+    }
 }
@@ -1,5 +1,7 @@
 package io.leedsk1y.taskmanagerx_backend.models;
 
+import io.leedsk1y.taskmanagerx_backend.config.HibernateCacheConfig;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -10,11 +12,17 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 import java.util.UUID;
 
 @Entity
 @Table(name = "roles")
+@Immutable // seeded by migrations only
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = HibernateCacheConfig.ROLES_REGION)
 @Getter
 @Setter
 public class Role {
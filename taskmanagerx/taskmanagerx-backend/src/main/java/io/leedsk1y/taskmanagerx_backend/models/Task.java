@@ -11,15 +11,19 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "tasks")
+@DynamicUpdate // UPDATEs only list the changed columns, so the description is not rewritten on every change
 @Getter
 @Setter
 public class Task {
@@ -44,6 +48,18 @@ public class Task {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @UpdateTimestamp // bulk UPDATEs in TaskRepository set it themselves
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Long version;
+
+    // the owner's tasks_version produced by the last change, for delta sync; written only by
+    // TaskRepository.updateChangeSeq, so that flushing a task loaded earlier cannot set it back
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private long changeSeq;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
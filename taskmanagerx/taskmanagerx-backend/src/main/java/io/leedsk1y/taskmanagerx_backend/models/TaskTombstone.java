@@ -0,0 +1,40 @@
+package io.leedsk1y.taskmanagerx_backend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Marks a task as removed from a user's task list (deleted, or reassigned to someone else),
+ * so that delta sync can report it. Kept for spring.app.taskTombstoneRetentionMs.
+ */
+@Entity
+@Table(name = "task_tombstones")
+@Getter
+@Setter
+public class TaskTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "task_id", nullable = false)
+    private UUID taskId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // the (former) owner's tasks_version produced by the removal
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+}
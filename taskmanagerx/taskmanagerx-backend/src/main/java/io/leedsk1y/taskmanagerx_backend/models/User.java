@@ -1,5 +1,7 @@
 package io.leedsk1y.taskmanagerx_backend.models;
 
+import io.leedsk1y.taskmanagerx_backend.config.HibernateCacheConfig;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -15,6 +17,8 @@ import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -31,6 +35,8 @@ import java.util.stream.Collectors;
 @Table(name = "users", uniqueConstraints = {
         @UniqueConstraint(columnNames = "email")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USERS_REGION)
 @Getter
 @Setter
 public class User implements UserDetails {
@@ -54,7 +60,11 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private EAuthProvider authProvider;
 
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt; // set while a deleted account waits to be purged
+
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USER_ROLES_REGION)
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
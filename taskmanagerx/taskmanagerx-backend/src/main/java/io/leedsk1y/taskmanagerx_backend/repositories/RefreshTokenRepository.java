@@ -0,0 +1,42 @@
+package io.leedsk1y.taskmanagerx_backend.repositories;
+
+import io.leedsk1y.taskmanagerx_backend.models.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+    @Query("SELECT r FROM RefreshToken r JOIN FETCH r.user u LEFT JOIN FETCH u.roles WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashWithUser(@Param("tokenHash") String tokenHash);
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.rotatedAt = :now " +
+            "WHERE r.id = :id AND r.rotatedAt IS NULL AND r.revoked = false")
+    int markRotated(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.rotatedAt FROM RefreshToken r WHERE r.id = :id AND r.revoked = false")
+    Optional<LocalDateTime> findRotatedAtIfNotRevoked(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId")
+    int revokeFamily(@Param("familyId") UUID familyId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.user.id = :userId")
+    int revokeAllForUser(@Param("userId") UUID userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
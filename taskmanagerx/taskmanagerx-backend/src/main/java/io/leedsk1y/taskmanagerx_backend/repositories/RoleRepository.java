@@ -1,12 +1,20 @@
 package io.leedsk1y.taskmanagerx_backend.repositories;
 
+import io.leedsk1y.taskmanagerx_backend.config.HibernateCacheConfig;
 import io.leedsk1y.taskmanagerx_backend.models.ERole;
 import io.leedsk1y.taskmanagerx_backend.models.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RoleRepository extends JpaRepository<Role, UUID> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.ROLE_QUERIES_REGION)
+    })
     Optional<Role> findByName(ERole name);
 }
\ No newline at end of file
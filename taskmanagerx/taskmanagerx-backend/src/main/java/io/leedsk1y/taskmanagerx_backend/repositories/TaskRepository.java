@@ -2,38 +2,63 @@ package io.leedsk1y.taskmanagerx_backend.repositories;
 
 import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
 import io.leedsk1y.taskmanagerx_backend.models.Task;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, UUID> {
-    List<Task> findTasksByUserId (UUID userId);
-
-    List<Task> findTasksByUserId (UUID userId, Sort sort);
-
-    @Query("SELECT t FROM Task t WHERE t.user.id = :userId " +
-            "AND (:status IS NULL OR t.status = :status) " +
-            "AND (:dueDateBefore IS NULL OR t.dueDate < :dueDateBefore) " +
-            "AND (:dueDateAfter IS NULL OR t.dueDate > :dueDateAfter)")
-    List<Task> findTasksByFilters(
-            @Param("userId") UUID userId,
-            @Param("status") ETaskStatus status,
-            @Param("dueDateBefore") LocalDateTime dueDateBefore,
-            @Param("dueDateAfter") LocalDateTime dueDateAfter);
-
-    @Query("SELECT t FROM Task t WHERE (:status IS NULL OR t.status = :status) " +
-            "AND (:dueDateBefore IS NULL OR t.dueDate < :dueDateBefore) " +
-            "AND (:dueDateAfter IS NULL OR t.dueDate > :dueDateAfter) " +
-            "AND (:userId IS NULL OR t.user.id = :userId)")
-    List<Task> findTasksByFiltersForAdminAndUser(@Param("userId") UUID userId,
-                                                 @Param("status") ETaskStatus status,
-                                                 @Param("dueDateBefore") LocalDateTime dueDateBefore,
-                                                 @Param("dueDateAfter") LocalDateTime dueDateAfter);
+public interface TaskRepository extends JpaRepository<Task, UUID>, JpaSpecificationExecutor<Task>,
+        TaskRepositoryCustom {
+    long countByUserId(UUID userId);
+
+    @Query("SELECT t.version FROM Task t WHERE t.id = :id AND t.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    @Query("SELECT t.id FROM Task t WHERE t.user.id = :userId")
+    List<UUID> findIdsByUserId(@Param("userId") UUID userId, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Task t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Task t SET t.title = :title, t.description = :description, t.status = :status, t.dueDate = :dueDate, " +
+            "t.updatedAt = :now, t.version = t.version + 1 WHERE t.id = :id AND t.user.id = :userId")
+    int updateByIdAndUserId(@Param("id") UUID id,
+                            @Param("userId") UUID userId,
+                            @Param("title") String title,
+                            @Param("description") String description,
+                            @Param("status") ETaskStatus status,
+                            @Param("dueDate") LocalDateTime dueDate,
+                            @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Task t SET t.status = :status, t.updatedAt = :now, t.version = t.version + 1 " +
+            "WHERE t.id = :id AND t.user.id = :userId")
+    int updateStatusByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId, @Param("status") ETaskStatus status,
+                                  @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Task t SET t.changeSeq = :changeSeq WHERE t.id IN :ids")
+    int updateChangeSeq(@Param("ids") Collection<UUID> ids, @Param("changeSeq") long changeSeq);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Task t WHERE t.id = :id AND t.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
 }
@@ -0,0 +1,46 @@
+package io.leedsk1y.taskmanagerx_backend.repositories;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.models.Task;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Task queries that project rows straight into response DTOs. The owner's columns are joined into the same
+ * statement, so listing tasks never loads User entities (or their roles) one by one.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Selects tasks matching a specification as DTOs.
+     * @param spec Conditions the tasks must match.
+     * @param sort Ordering of the result.
+     * @param includeUser Whether to include the owner in each task.
+     * @return List of matching tasks as TaskResponseDTO.
+     */
+    List<TaskResponseDTO> findTaskResponses(Specification<Task> spec, Sort sort, boolean includeUser);
+
+    /**
+     * Selects at most {@code limit} tasks matching a specification as DTOs.
+     * @param spec Conditions the tasks must match.
+     * @param sort Ordering of the result.
+     * @param limit Maximum number of rows.
+     * @param includeUser Whether to include the owner in each task.
+     * @return List of matching tasks as TaskResponseDTO.
+     */
+    List<TaskResponseDTO> findTaskResponses(Specification<Task> spec, Sort sort, int limit, boolean includeUser);
+
+    /**
+     * Streams tasks matching a specification as DTOs, reading rows from the database in chunks.
+     * The stream must be consumed inside a transaction and closed afterwards.
+     * @param spec Conditions the tasks must match.
+     * @param sort Ordering of the result.
+     * @param fetchSize Number of rows the JDBC driver fetches per round trip.
+     * @param includeUser Whether to include the owner in each task.
+     * @return Stream of matching tasks as TaskResponseDTO.
+     */
+    Stream<TaskResponseDTO> streamTaskResponses(Specification<Task> spec, Sort sort, int fetchSize, boolean includeUser);
+}
@@ -0,0 +1,80 @@
+package io.leedsk1y.taskmanagerx_backend.repositories;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.models.Task;
+import io.leedsk1y.taskmanagerx_backend.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+    private final EntityManager entityManager;
+
+    TaskRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<TaskResponseDTO> findTaskResponses(Specification<Task> spec, Sort sort, boolean includeUser) {
+        return createQuery(spec, sort, includeUser).getResultList();
+    }
+
+    @Override
+    public List<TaskResponseDTO> findTaskResponses(Specification<Task> spec, Sort sort, int limit, boolean includeUser) {
+        return createQuery(spec, sort, includeUser).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Stream<TaskResponseDTO> streamTaskResponses(Specification<Task> spec, Sort sort, int fetchSize,
+                                                       boolean includeUser) {
+        // DTO rows never enter the persistence context, so the session does not grow while the stream is read
+        return createQuery(spec, sort, includeUser)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private TypedQuery<TaskResponseDTO> createQuery(Specification<Task> spec, Sort sort, boolean includeUser) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskResponseDTO> query = cb.createQuery(TaskResponseDTO.class);
+        Root<Task> task = query.from(Task.class);
+
+        if (includeUser) {
+            // left join, so that sorting by "user.email" reuses it instead of adding a second one
+            Join<Task, User> user = task.join("user", JoinType.LEFT);
+            query.select(cb.construct(TaskResponseDTO.class,
+                    task.get("id"), task.get("title"), task.get("description"), task.get("status"),
+                    task.get("dueDate"), task.get("createdAt"), user.get("id"), task.get("version"), user.get("name"),
+                    user.get("email"), user.get("profileImage")));
+        } else {
+            query.select(cb.construct(TaskResponseDTO.class,
+                    task.get("id"), task.get("title"), task.get("description"), task.get("status"),
+                    task.get("dueDate"), task.get("createdAt"), task.get("user").get("id"),
+                    task.get("version")));
+        }
+
+        Predicate predicate = spec.toPredicate(task, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, task, cb));
+        }
+
+        // criteria values are bound as parameters, so each filter combination always renders the same SQL text
+        // and the database can reuse one plan per combination
+        return entityManager.createQuery(query);
+    }
+}
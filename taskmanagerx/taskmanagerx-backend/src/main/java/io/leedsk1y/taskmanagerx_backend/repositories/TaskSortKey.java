@@ -0,0 +1,45 @@
+package io.leedsk1y.taskmanagerx_backend.repositories;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Columns that task lists can be ordered and keyset-paginated by. The task ID is always the tie-breaker.
+ */
+public enum TaskSortKey {
+    CREATED_AT("createdAt", false, TaskResponseDTO::getCreatedAt, LocalDateTime::parse),
+    DUE_DATE("dueDate", true, TaskResponseDTO::getDueDate, LocalDateTime::parse),
+    USER_EMAIL("user.email", false, task -> task.getUser().getEmail(), value -> value);
+
+    private final String path;
+    private final boolean nullable;
+    private final Function<TaskResponseDTO, Comparable<?>> extractor;
+    private final Function<String, Comparable<?>> parser;
+
+    TaskSortKey(String path, boolean nullable, Function<TaskResponseDTO, Comparable<?>> extractor,
+                Function<String, Comparable<?>> parser) {
+        this.path = path;
+        this.nullable = nullable;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    public String format(TaskResponseDTO task) {
+        Comparable<?> value = extractor.apply(task);
+        return value == null ? null : value.toString();
+    }
+
+    public Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+}
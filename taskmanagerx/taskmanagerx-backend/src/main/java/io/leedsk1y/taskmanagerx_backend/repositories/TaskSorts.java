@@ -0,0 +1,57 @@
+package io.leedsk1y.taskmanagerx_backend.repositories;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps client sort fields to task properties. Only whitelisted fields can be sorted by, so a request cannot
+ * order by (and thereby probe) arbitrary columns such as the owner's password hash.
+ */
+public final class TaskSorts {
+    private static final Map<String, String> TASK_FIELDS = Map.of(
+            "title", "title",
+            "status", "status",
+            "dueDate", "dueDate",
+            "createdAt", "createdAt");
+
+    private static final Map<String, String> USER_FIELDS = Map.of(
+            "userEmail", "user.email",
+            "userName", "user.name");
+
+    private TaskSorts() {
+    }
+
+    /**
+     * Translates a requested multi-field sort into task properties and appends the task ID as a tie-breaker,
+     * so that the order is deterministic.
+     * @param requested Sort as parsed from the "sort" request parameters, e.g. {@code sort=dueDate,desc&sort=title}.
+     * @param allowUserFields Whether sorting by owner fields is allowed.
+     * @return The sort to pass to the repository, unsorted if nothing was requested.
+     * @throws ResponseStatusException with 400 if a field cannot be sorted by.
+     */
+    public static Sort resolve(Sort requested, boolean allowUserFields) {
+        if (requested == null || requested.isUnsorted()) {
+            return Sort.unsorted();
+        }
+
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : requested) {
+            String property = TASK_FIELDS.get(order.getProperty());
+            if (property == null && allowUserFields) {
+                property = USER_FIELDS.get(order.getProperty());
+            }
+            if (property == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot sort by " + order.getProperty());
+            }
+            orders.add(new Sort.Order(order.getDirection(), property));
+        }
+        orders.add(Sort.Order.asc("id"));
+
+        return Sort.by(orders);
+    }
+}
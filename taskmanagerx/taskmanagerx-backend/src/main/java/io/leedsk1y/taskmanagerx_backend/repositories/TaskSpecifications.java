@@ -0,0 +1,113 @@
+package io.leedsk1y.taskmanagerx_backend.repositories;
+
+import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
+import io.leedsk1y.taskmanagerx_backend.models.Task;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Reusable predicates for task queries. Filter factories given a null argument contribute no predicate,
+ * so only the conditions that are actually requested end up in the SQL.
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    /**
+     * Combines the filters offered by the task list endpoints.
+     * @param userId Owner UUID, or null for tasks of all users.
+     * @param status Task status, or null for any status.
+     * @param dueDateBefore Only tasks due before this date, or null.
+     * @param dueDateAfter Only tasks due after this date, or null.
+     * @return Specification matching all given conditions.
+     */
+    public static Specification<Task> matching(UUID userId, ETaskStatus status, LocalDateTime dueDateBefore,
+                                               LocalDateTime dueDateAfter) {
+        return ownedBy(userId)
+                .and(hasStatus(status))
+                .and(dueBefore(dueDateBefore))
+                .and(dueAfter(dueDateAfter));
+    }
+
+    public static Specification<Task> hasId(UUID taskId) {
+        return (root, query, cb) -> cb.equal(root.get("id"), taskId);
+    }
+
+    public static Specification<Task> idIn(Collection<UUID> taskIds) {
+        return (root, query, cb) -> root.get("id").in(taskIds);
+    }
+
+    public static Specification<Task> ownedBy(UUID userId) {
+        return (root, query, cb) -> userId == null ? null : cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Task> hasStatus(ETaskStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Task> changedAfter(Long changeSeq) {
+        return (root, query, cb) -> changeSeq == null ? null : cb.greaterThan(root.get("changeSeq"), changeSeq);
+    }
+
+    public static Specification<Task> dueBefore(LocalDateTime dueDate) {
+        return (root, query, cb) -> dueDate == null ? null : cb.lessThan(root.get("dueDate"), dueDate);
+    }
+
+    public static Specification<Task> dueAfter(LocalDateTime dueDate) {
+        return (root, query, cb) -> dueDate == null ? null : cb.greaterThan(root.get("dueDate"), dueDate);
+    }
+
+    public static Specification<Task> keyIsNull(TaskSortKey key) {
+        return (root, query, cb) -> cb.isNull(path(root, key));
+    }
+
+    public static Specification<Task> keyIsNotNull(TaskSortKey key) {
+        return (root, query, cb) -> cb.isNotNull(path(root, key));
+    }
+
+    /**
+     * Seek predicate for keyset pagination: rows strictly after (key, id) in the given direction.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Task> seekAfter(TaskSortKey key, Sort.Direction direction, Comparable keyValue, UUID id) {
+        return (root, query, cb) -> {
+            Path<Comparable> keyPath = (Path<Comparable>) path(root, key);
+            Path<UUID> idPath = root.get("id");
+
+            return direction.isAscending()
+                    ? cb.or(cb.greaterThan(keyPath, keyValue),
+                            cb.and(cb.equal(keyPath, keyValue), cb.greaterThan(idPath, id)))
+                    : cb.or(cb.lessThan(keyPath, keyValue),
+                            cb.and(cb.equal(keyPath, keyValue), cb.lessThan(idPath, id)));
+        };
+    }
+
+    public static Specification<Task> idAfter(Sort.Direction direction, UUID id) {
+        return (root, query, cb) -> direction.isAscending()
+                ? cb.greaterThan(root.get("id"), id)
+                : cb.lessThan(root.get("id"), id);
+    }
+
+    private static Path<?> path(Root<Task> root, TaskSortKey key) {
+        String[] attributes = key.getPath().split("\\.");
+
+        // reuse a join the query already has (e.g. the one used to project the owner) instead of adding another
+        Path<?> path = root.getJoins().stream()
+                .filter(join -> join.getAttribute().getName().equals(attributes[0]))
+                .<Path<?>>map(join -> join)
+                .findFirst()
+                .orElseGet(() -> root.get(attributes[0]));
+
+        for (int i = 1; i < attributes.length; i++) {
+            path = path.get(attributes[i]);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,22 @@
+package io.leedsk1y.taskmanagerx_backend.repositories;
+
+import io.leedsk1y.taskmanagerx_backend.models.TaskTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, UUID> {
+    @Query("SELECT DISTINCT t.taskId FROM TaskTombstone t WHERE t.userId = :userId AND t.changeSeq > :changeSeq")
+    List<UUID> findTaskIdsRemovedAfter(@Param("userId") UUID userId, @Param("changeSeq") long changeSeq);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TaskTombstone t WHERE t.deletedAt <= :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,12 +1,75 @@
 package io.leedsk1y.taskmanagerx_backend.repositories;
 
+import io.leedsk1y.taskmanagerx_backend.config.HibernateCacheConfig;
 import io.leedsk1y.taskmanagerx_backend.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
-    Optional<User> findByEmail(String email);
+    String TASKS_VERSION_SPACE = "users_tasks_version";
+
+    // accounts marked deleted are no longer found by email, so they cannot log in or be resolved as a principal
+    @Query("SELECT u FROM User u WHERE u.email = :email AND u.deletedAt IS NULL")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.USER_QUERIES_REGION)
+    })
+    Optional<User> findByEmail(@Param("email") String email);
+
     boolean existsByEmail(String email);
+
+    List<User> findByDeletedAtIsNull();
+
+    @Query("SELECT u.id FROM User u WHERE u.deletedAt IS NOT NULL")
+    List<UUID> findDeletedUserIds();
+
+    // the email is replaced by a tombstone value, so the address is free for a new registration during the purge
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.deletedAt = :now, u.email = CONCAT('deleted+', CAST(u.id AS String), '@invalid') " +
+            "WHERE u.id = :id AND u.deletedAt IS NULL")
+    int markDeleted(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    // tasks_version and tombstones_purged_seq are not mapped on User and these statements declare a query space of their own: a bulk UPDATE
+    // of users would evict every cached user (and every cached users query) on each task write
+    @Query(value = "SELECT tasks_version FROM users WHERE id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TASKS_VERSION_SPACE))
+    Optional<Long> findTasksVersionById(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET tasks_version = tasks_version + 1 WHERE id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TASKS_VERSION_SPACE))
+    int incrementTasksVersion(@Param("id") UUID id);
+
+    @Query(value = "SELECT tombstones_purged_seq FROM users WHERE id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TASKS_VERSION_SPACE))
+    Optional<Long> findTombstonesPurgedSeqById(@Param("id") UUID id);
+
+    // run before the tombstones are deleted, in the same transaction
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users u SET tombstones_purged_seq = (SELECT MAX(t.change_seq) FROM task_tombstones t " +
+            "WHERE t.user_id = u.id AND t.deleted_at <= :cutoff) " +
+            "WHERE EXISTS (SELECT 1 FROM task_tombstones t WHERE t.user_id = u.id AND t.deleted_at <= :cutoff)",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TASKS_VERSION_SPACE))
+    int updateTombstonesPurgedSeq(@Param("cutoff") LocalDateTime cutoff);
+
+    // tasks, roles and refresh tokens of the user go with it (ON DELETE CASCADE)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int purgeById(@Param("id") UUID id);
 }
@@ -1,8 +1,13 @@
 package io.leedsk1y.taskmanagerx_backend.security.config;
 
+import io.leedsk1y.taskmanagerx_backend.models.User;
 import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
+import io.leedsk1y.taskmanagerx_backend.security.crypto.BoundedPasswordEncoder;
 import io.leedsk1y.taskmanagerx_backend.security.jwt.AuthEntryPointJwt;
 import io.leedsk1y.taskmanagerx_backend.security.jwt.AuthTokenFilter;
+import io.leedsk1y.taskmanagerx_backend.security.services.PrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +19,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -26,10 +32,25 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableMethodSecurity
 public class SecurityConfig {
     private final AuthEntryPointJwt unauthorizedHandler;
+    private final PrincipalCache principalCache;
     private final UserRepository userRepository;
 
-    public SecurityConfig(AuthEntryPointJwt unauthorizedHandler, UserRepository userRepository) {
+    @Value("${spring.app.bcryptStrength}")
+    private int bcryptStrength;
+
+    @Value("${spring.app.passwordHashPoolSize}")
+    private int passwordHashPoolSize;
+
+    @Value("${spring.app.passwordHashQueueCapacity}")
+    private int passwordHashQueueCapacity;
+
+    @Value("${spring.app.passwordHashTimeoutMs}")
+    private long passwordHashTimeoutMs;
+
+    public SecurityConfig(AuthEntryPointJwt unauthorizedHandler, PrincipalCache principalCache,
+                          UserRepository userRepository) {
         this.unauthorizedHandler = unauthorizedHandler;
+        this.principalCache = principalCache;
         this.userRepository = userRepository;
     }
 
@@ -40,8 +61,10 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        // BCrypt runs on its own bounded pool so that login bursts cannot starve the servlet threads
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength),
+                passwordHashPoolSize, passwordHashQueueCapacity, passwordHashTimeoutMs, meterRegistry);
     }
 
     @Bean
@@ -51,17 +74,31 @@ public class SecurityConfig {
 
     @Bean
     UserDetailsService userDetailsService() {
-        return username -> userRepository.findByEmail(username)
+        return username -> principalCache.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
+    @Bean
+    UserDetailsPasswordService userDetailsPasswordService() {
+        // re-hashes stored passwords on successful login when spring.app.bcryptStrength changes
+        return (userDetails, newPassword) -> {
+            User user = userRepository.findByEmail(userDetails.getUsername())
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            user.setPassword(newPassword);
+            userRepository.save(user);
+            principalCache.evict(user);
+            return user;
+        };
+    }
+
     @Bean
     @Order(SecurityProperties.BASIC_AUTH_ORDER)
     SecurityFilterChain defaultSecurityFilterChain(HttpSecurity http) throws Exception {
         http.authorizeHttpRequests(authorizeRequests ->
                 authorizeRequests
-                        .requestMatchers("/auth/register", "/auth/login", "/oauth2/**").permitAll() // security endpoints
+                        .requestMatchers("/auth/register", "/auth/login", "/auth/refresh", "/oauth2/**").permitAll() // security endpoints
                         .requestMatchers("/admin/**").hasRole("ADMIN") // admin endpoints
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // metrics
 //                        .requestMatchers("/h2-console", "/h2-console/**").permitAll() // (temp) allows all requests coming to h2-console
                         .anyRequest().authenticated());
 
@@ -1,5 +1,7 @@
 package io.leedsk1y.taskmanagerx_backend.security.jwt;
 
+import io.jsonwebtoken.Claims;
+import io.leedsk1y.taskmanagerx_backend.models.ERole;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,7 +9,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,6 +20,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -24,8 +35,22 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Value("${spring.app.statelessAuth}")
+    private boolean statelessAuth;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+    // shared authority instances, one per role and one list per distinct role combination
+    private static final Map<String, GrantedAuthority> ROLE_AUTHORITIES = Arrays.stream(ERole.values())
+            .collect(Collectors.toUnmodifiableMap(Enum::name, role -> new SimpleGrantedAuthority(role.name())));
+    private final Map<List<String>, List<GrantedAuthority>> authoritiesByRoles = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // the access token is expected to be expired here, the refresh cookie is checked by the endpoint itself
+        return "/auth/refresh".equals(request.getServletPath());
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response, FilterChain filterChain)
@@ -35,7 +60,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             String jwt = jwtUtils.getJwtFromCookies(request);
 
             if (jwt != null) {
-                if (!jwtUtils.validateJwtToken(jwt, response)) {
+                Claims claims = jwtUtils.parseAndValidateJwtToken(jwt, response);
+
+                if (claims == null) {
                     logger.warn("Invalid or blacklisted token detected: {}", jwt);
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     response.getWriter().write("{\"error\":\"Unauthorized - Invalid or blacklisted token\"}");
@@ -44,15 +71,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                     return;
                 }
 
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails,
-                                null,
-                                userDetails.getAuthorities());
+                        statelessAuth && claims.get(JwtUtils.USER_ID_CLAIM) != null
+                                ? buildAuthenticationFromClaims(claims)
+                                : buildAuthenticationFromUser(claims.getSubject());
 
-                logger.debug("Roles from JWT: {}", userDetails.getAuthorities());
+                logger.debug("Roles from JWT: {}", authentication.getAuthorities());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (Exception e) {
@@ -61,4 +85,28 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken buildAuthenticationFromUser(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+
+        return new UsernamePasswordAuthenticationToken(userDetails,
+                null,
+                userDetails.getAuthorities());
+    }
+
+    // stateless mode: the token is already verified and not revoked, so its claims are trusted as-is
+    @SuppressWarnings("unchecked")
+    private UsernamePasswordAuthenticationToken buildAuthenticationFromClaims(Claims claims) {
+        JwtPrincipal principal = new JwtPrincipal(
+                UUID.fromString(claims.get(JwtUtils.USER_ID_CLAIM, String.class)),
+                claims.getSubject());
+
+        List<String> roles = claims.get(JwtUtils.ROLES_CLAIM, List.class);
+        List<GrantedAuthority> authorities = roles == null ? List.of() : authoritiesByRoles.computeIfAbsent(roles,
+                key -> key.stream()
+                        .map(role -> ROLE_AUTHORITIES.getOrDefault(role, new SimpleGrantedAuthority(role)))
+                        .toList());
+
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
 }
@@ -1,12 +1,15 @@
 package io.leedsk1y.taskmanagerx_backend.security.jwt;
 
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class CookieUtils {
     private static final Logger logger = LoggerFactory.getLogger(CookieUtils.class);
+    private static final String REFRESH_COOKIE = "refresh_token";
+    private static final String REFRESH_COOKIE_PATH = "/auth"; // only sent to /auth/refresh and /auth/logout
 
     public static void setJwtCookie(HttpServletResponse response, String jwtToken) {
         Cookie cookie = new Cookie("jwt", jwtToken);
@@ -31,4 +34,39 @@ public class CookieUtils {
         response.addCookie(cookie);
         logger.debug("JWT cookie cleared.");
     }
+
+    public static void setRefreshCookie(HttpServletResponse response, String refreshToken, long maxAgeMs) {
+        Cookie cookie = new Cookie(REFRESH_COOKIE, refreshToken);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(true);
+        cookie.setPath(REFRESH_COOKIE_PATH);
+        cookie.setMaxAge((int) (maxAgeMs / 1000)); // as long as the refresh token itself is valid
+        cookie.setAttribute("SameSite", "Strict");
+
+        response.addCookie(cookie);
+        logger.debug("Refresh cookie set successfully.");
+    }
+
+    public static void clearRefreshCookie(HttpServletResponse response) {
+        Cookie cookie = new Cookie(REFRESH_COOKIE, null);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(true);
+        cookie.setPath(REFRESH_COOKIE_PATH);
+        cookie.setMaxAge(0);
+        cookie.setAttribute("SameSite", "Strict");
+
+        response.addCookie(cookie);
+        logger.debug("Refresh cookie cleared.");
+    }
+
+    public static String getRefreshTokenFromCookies(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (REFRESH_COOKIE.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
 }
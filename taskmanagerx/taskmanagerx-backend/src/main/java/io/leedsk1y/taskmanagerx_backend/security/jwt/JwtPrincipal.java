@@ -0,0 +1,16 @@
+package io.leedsk1y.taskmanagerx_backend.security.jwt;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.UUID;
+
+/**
+ * Lightweight principal built from verified JWT claims in stateless mode.
+ * getName() returns the email, like User.getUsername(), so services can resolve the caller the same way.
+ */
+public record JwtPrincipal(UUID id, String email) implements AuthenticatedPrincipal {
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,30 +1,38 @@
 package io.leedsk1y.taskmanagerx_backend.security.jwt;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.leedsk1y.taskmanagerx_backend.models.User;
+import io.leedsk1y.taskmanagerx_backend.security.services.TokenRevocationStore;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
-    private final Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+    // iat has only second precision, too coarse to tell a token issued right after a per-user cutoff from one before it
+    public static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+    private final TokenRevocationStore tokenRevocationStore;
 
     @Value("${spring.app.jwtSecret}")
     private String jwtSecret;
@@ -32,8 +40,18 @@ public class JwtUtils {
     @Value("${spring.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    // derived once at startup, both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    public JwtUtils(TokenRevocationStore tokenRevocationStore) {
+        this.tokenRevocationStore = tokenRevocationStore;
+    }
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
     }
 
     public String getJwtFromCookies(HttpServletRequest request) {
@@ -47,41 +65,94 @@ public class JwtUtils {
         return null;
     }
 
-    public String generateTokenFromUsername(String username) {
+    /**
+     * Generates a signed JWT for the user, carrying the user ID and granted roles as claims
+     * so that requests can be authorized without loading the user (see spring.app.statelessAuth).
+     * @param user The authenticated user.
+     * @return The compact JWT.
+     */
+    public String generateTokenFromUser(User user) {
+        List<String> roles = user.getRoles().stream()
+                .map(role -> role.getName().name())
+                .sorted()
+                .toList();
+
+        Date now = new Date();
         return Jwts.builder()
-                .subject(username)
-                .issuedAt(new Date())
-                .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key())
+                .id(UUID.randomUUID().toString())
+                .subject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId().toString())
+                .claim(ROLES_CLAIM, roles)
+                .claim(ISSUED_AT_MS_CLAIM, now.getTime())
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + jwtExpirationMs))
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser().verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+    /**
+     * Revokes a token until it expires. Invalid or already expired tokens are ignored.
+     * @param token The raw JWT to revoke.
+     */
+    public void blacklistToken(String token) {
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            tokenRevocationStore.revoke(getTokenId(claims, token), claims.getExpiration().toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Skipping revocation of invalid JWT token: {}", e.getMessage());
+        }
     }
 
-    public void blacklistToken(String token) {
-        blacklistedTokens.add(token);
+    /**
+     * Revokes every token issued to the user so far, e.g. after account deletion, a role or a password change.
+     * Tokens issued afterwards, even within the same second, stay valid.
+     * @param userId User UUID.
+     */
+    public void revokeAllTokensForUser(UUID userId) {
+        tokenRevocationStore.revokeAllForUser(userId, Instant.now().plusMillis(jwtExpirationMs));
+    }
+
+    public boolean isTokenBlacklisted(Claims claims, String token) {
+        if (tokenRevocationStore.isRevoked(getTokenId(claims, token))) {
+            return true;
+        }
+
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        Long issuedAtMs = claims.get(ISSUED_AT_MS_CLAIM, Long.class);
+        Instant issuedAt = issuedAtMs != null ? Instant.ofEpochMilli(issuedAtMs)
+                : claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+
+        return userId != null && issuedAt != null
+                && tokenRevocationStore.isRevokedForUser(UUID.fromString(userId), issuedAt);
     }
 
-    public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+    // tokens issued before jti was introduced are identified by their signature
+    private String getTokenId(Claims claims, String token) {
+        return claims.getId() != null ? claims.getId() : token.substring(token.lastIndexOf('.') + 1);
     }
 
     public boolean validateJwtToken(String authToken, HttpServletResponse response) {
-        if (isTokenBlacklisted(authToken)) {
-            logger.error("JWT token is blacklisted");
-            CookieUtils.clearJwtCookie(response);
-            return false;
-        }
+        return parseAndValidateJwtToken(authToken, response) != null;
+    }
 
+    /**
+     * Verifies the token signature and expiry in a single pass and returns its claims.
+     * Clears the JWT cookie when the token is rejected.
+     * @param authToken The raw JWT taken from the request.
+     * @param response The HTTP response where the JWT cookie will be cleared if the token is invalid.
+     * @return The verified claims, or null if the token is blacklisted or invalid.
+     */
+    public Claims parseAndValidateJwtToken(String authToken, HttpServletResponse response) {
         try {
-            Jwts.parser().verifyWith((SecretKey) key()).build().parseSignedClaims(authToken);
-            return true;
+            Claims claims = jwtParser.parseSignedClaims(authToken).getPayload();
+
+            if (isTokenBlacklisted(claims, authToken)) {
+                logger.error("JWT token is blacklisted");
+                CookieUtils.clearJwtCookie(response);
+                return null;
+            }
+
+            return claims;
         }
         catch(MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
@@ -100,6 +171,6 @@ public class JwtUtils {
             CookieUtils.clearJwtCookie(response);
         }
 
-        return false;
+        return null;
     }
-}
\ No newline at end of file
+}
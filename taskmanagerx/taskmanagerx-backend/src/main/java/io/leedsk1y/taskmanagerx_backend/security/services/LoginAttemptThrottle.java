@@ -0,0 +1,263 @@
+package io.leedsk1y.taskmanagerx_backend.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles failed logins per email and client IP pair, per client IP and per email, using sliding-window
+ * counters. Checks run before any user lookup or password hashing, so credential-stuffing bursts stay cheap.
+ * <p>
+ * Exceeding the limit of an email and IP pair or of an IP locks the key out for a period that doubles with every
+ * consecutive lockout. The email alone has a much higher limit and only a short, fixed lockout, after which its
+ * failures keep counting until they leave the window: guesses at one account spread over many addresses are
+ * bounded to that limit per window, while someone failing on purpose can keep the user out only for as long
+ * as they keep failing, and no more than the short lockout beyond that.
+ * <p>
+ * An attempt reserves a slot on every key before the password is hashed and gives it back once its outcome is
+ * recorded, so a burst of concurrent attempts cannot all pass the check while none of them has failed yet.
+ * <p>
+ * The counters are kept in a Caffeine cache bounded in size, and each entry expires once it is neither
+ * locked nor holding failures that still count.
+ */
+@Component
+public class LoginAttemptThrottle {
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptThrottle.class);
+
+    private final Cache<String, Window> windows;
+    private final Limit emailAndIpLimit;
+    private final Limit ipLimit;
+    private final Limit accountLimit;
+    private final long windowMs;
+
+    public LoginAttemptThrottle(@Value("${spring.app.loginMaxFailuresPerEmail}") int maxFailuresPerEmail,
+                                @Value("${spring.app.loginMaxFailuresPerIp}") int maxFailuresPerIp,
+                                @Value("${spring.app.loginMaxFailuresPerAccount}") int maxFailuresPerAccount,
+                                @Value("${spring.app.loginThrottleWindowMs}") long windowMs,
+                                @Value("${spring.app.loginLockoutMs}") long lockoutMs,
+                                @Value("${spring.app.loginMaxLockoutMs}") long maxLockoutMs,
+                                @Value("${spring.app.loginAccountLockoutMs}") long accountLockoutMs,
+                                @Value("${spring.app.loginThrottleMaxKeys}") long maxKeys) {
+        this.emailAndIpLimit = new Limit(maxFailuresPerEmail, lockoutMs, maxLockoutMs, true);
+        this.ipLimit = new Limit(maxFailuresPerIp, lockoutMs, maxLockoutMs, true);
+        this.accountLimit = new Limit(maxFailuresPerAccount, accountLockoutMs, accountLockoutMs, false);
+        this.windowMs = windowMs;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(new Expiry<String, Window>() {
+                    @Override
+                    public long expireAfterCreate(String key, Window window, long currentTime) {
+                        return window.retainNanos(windowMs);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Window window, long currentTime, long currentDuration) {
+                        return window.retainNanos(windowMs);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Window window, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Rejects the attempt if the email and client IP, the client IP alone or the email alone is locked out, or has
+     * as many attempts in progress as it may still fail; otherwise reserves a slot for the attempt on all three.
+     * Every successful call must be followed by recordFailure, recordSuccess or release.
+     * @param email The email used to log in.
+     * @param clientIp The client's IP address.
+     * @throws ResponseStatusException with 429 and a Retry-After header if the attempt is throttled.
+     */
+    public void acquire(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        reserve(ipKey(clientIp), ipLimit, now);
+        try {
+            reserve(emailKey(email, clientIp), emailAndIpLimit, now);
+            try {
+                reserve(accountKey(email), accountLimit, now);
+            } catch (RuntimeException e) {
+                release(emailKey(email, clientIp));
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            release(ipKey(clientIp));
+            throw e;
+        }
+    }
+
+    /**
+     * Records a failed attempt for the email and client IP, the client IP and the email, and releases its slots.
+     * @param email The email used to log in.
+     * @param clientIp The client's IP address.
+     */
+    public void recordFailure(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        recordFailure(emailKey(email, clientIp), emailAndIpLimit, now);
+        recordFailure(ipKey(clientIp), ipLimit, now);
+        recordFailure(accountKey(email), accountLimit, now);
+    }
+
+    /**
+     * Clears the failure history of the email and client IP after a successful login, and releases the
+     * attempt's slots. The histories of the IP alone and of the email alone are kept, so a successful login
+     * does not wipe out failures from elsewhere.
+     * @param email The email that logged in successfully.
+     * @param clientIp The client's IP address.
+     */
+    public void recordSuccess(String email, String clientIp) {
+        windows.asMap().computeIfPresent(emailKey(email, clientIp), (key, window) -> {
+            int inFlight = Math.max(0, window.inFlight() - 1);
+            return inFlight == 0 ? null : new Window(window.start(), 0, 0, 0L, 0, inFlight);
+        });
+        release(ipKey(clientIp));
+        release(accountKey(email));
+    }
+
+    /**
+     * Releases the slots of an attempt that ended without a verdict on the password, e.g. because the
+     * server was too busy to check it.
+     * @param email The email used to log in.
+     * @param clientIp The client's IP address.
+     */
+    public void release(String email, String clientIp) {
+        release(emailKey(email, clientIp));
+        release(ipKey(clientIp));
+        release(accountKey(email));
+    }
+
+    private void reserve(String key, Limit limit, long now) {
+        windows.asMap().compute(key, (k, existing) -> {
+            Window window = (existing == null ? Window.empty(now) : existing).slide(now, windowMs);
+
+            if (window.lockedUntil() > now) {
+                throw new LoginThrottledException((window.lockedUntil() - now + 999) / 1000);
+            }
+            if (window.estimate(now, windowMs) + window.inFlight() >= limit.maxFailures()) {
+                throw new LoginThrottledException(1);
+            }
+            return window.withInFlight(window.inFlight() + 1);
+        });
+    }
+
+    private void release(String key) {
+        windows.asMap().computeIfPresent(key, (k, window) -> window.withInFlight(Math.max(0, window.inFlight() - 1)));
+    }
+
+    private void recordFailure(String key, Limit limit, long now) {
+        Window updated = windows.asMap().compute(key, (k, existing) -> {
+            Window current = (existing == null ? Window.empty(now) : existing).slide(now, windowMs).withFailure();
+            current = current.withInFlight(Math.max(0, current.inFlight() - 1));
+
+            if (current.estimate(now, windowMs) < limit.maxFailures()) {
+                return current;
+            }
+            if (!limit.progressive()) {
+                // the failures stay in the window, so the key remains throttled until they leave it
+                return current.withLockedUntil(now + limit.lockoutMs());
+            }
+
+            long lockout = Math.min(limit.maxLockoutMs(), limit.lockoutMs() << Math.min(current.lockouts(), 20));
+            return new Window(now, 0, 0, now + lockout, current.lockouts() + 1, current.inFlight());
+        });
+
+        if (updated.lockedUntil() > now) {
+            logger.warn("Too many failed logins for {}, locked for {} ms", key, updated.lockedUntil() - now);
+        }
+    }
+
+    private static String emailKey(String email, String clientIp) {
+        return "email:" + (email == null ? "" : email.toLowerCase(Locale.ROOT)) + "|" + clientIp;
+    }
+
+    private static String ipKey(String clientIp) {
+        return "ip:" + clientIp;
+    }
+
+    private static String accountKey(String email) {
+        return "account:" + (email == null ? "" : email.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Failures allowed per window, and the lockout once they are exceeded: doubling with every consecutive
+     * lockout and starting the count over if progressive, otherwise fixed with the failures still counting.
+     */
+    private record Limit(int maxFailures, long lockoutMs, long maxLockoutMs, boolean progressive) {
+    }
+
+    /**
+     * Immutable sliding-window state: failures in the current and previous fixed windows,
+     * weighted by how far the current window has progressed, and attempts still in progress.
+     */
+    private record Window(long start, int current, int previous, long lockedUntil, int lockouts, int inFlight) {
+        static Window empty(long now) {
+            return new Window(now, 0, 0, 0L, 0, 0);
+        }
+
+        Window slide(long now, long windowMs) {
+            long elapsed = now - start;
+            if (elapsed < windowMs) {
+                return this;
+            }
+            // one window later the current count becomes the previous one, any later and both are stale
+            int carried = elapsed < 2 * windowMs ? current : 0;
+            return new Window(now - (elapsed % windowMs), 0, carried, lockedUntil, lockouts, inFlight);
+        }
+
+        Window withFailure() {
+            return new Window(start, current + 1, previous, lockedUntil, lockouts, inFlight);
+        }
+
+        Window withInFlight(int inFlight) {
+            return new Window(start, current, previous, lockedUntil, lockouts, inFlight);
+        }
+
+        Window withLockedUntil(long lockedUntil) {
+            return new Window(start, current, previous, lockedUntil, lockouts, inFlight);
+        }
+
+        /**
+         * @return How much longer the window matters: until its lockout ends and its failures no longer count.
+         */
+        long retainNanos(long windowMs) {
+            long until = Math.max(lockedUntil, start + 2 * windowMs);
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, until - System.currentTimeMillis()));
+        }
+
+        double estimate(long now, long windowMs) {
+            double previousWeight = 1.0 - (double) (now - start) / windowMs;
+            return current + previous * Math.max(0.0, previousWeight);
+        }
+    }
+
+    /**
+     * 429 response carrying a Retry-After header.
+     */
+    public static class LoginThrottledException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        public LoginThrottledException(long retryAfterSeconds) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Too many failed login attempts, please try again later");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.leedsk1y.taskmanagerx_backend.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.leedsk1y.taskmanagerx_backend.models.User;
+import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL-based cache of authenticated users keyed by email.
+ * Shared by the JWT filter and the services so that identifying the caller costs at most one
+ * database round-trip per TTL instead of one or two per request.
+ * <p>
+ * A miss is loaded atomically for its key, and an eviction of that key waits for a running load to finish
+ * before removing the result, so a user loaded just before a change cannot be put back after the eviction.
+ * <p>
+ * The Hibernate second-level cache also holds users, but a hit there still needs a session, the query cache's
+ * timestamp check and the hydration of the user and its roles. This cache hands out a ready, detached user
+ * without touching the persistence layer, which is what the filter needs on every request. The second-level
+ * cache in turn makes this cache's misses cheap and serves the other user lookups; unlike this cache, it is
+ * invalidated by Hibernate itself, while entries here rely on explicit eviction and a short TTL.
+ */
+@Component
+public class PrincipalCache {
+    private final UserRepository userRepository;
+    private final Cache<String, User> usersByEmail;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${spring.app.principalCacheTtlMs}") long ttlMs,
+                          @Value("${spring.app.principalCacheMaxSize}") int maxSize) {
+        this.userRepository = userRepository;
+        this.usersByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    /**
+     * Retrieves a user by email, loading it from the database only on a miss or after the entry expired.
+     * @param email The user's email.
+     * @return The user, or an empty Optional if no such user exists.
+     */
+    public Optional<User> findByEmail(String email) {
+        // unknown emails are not cached, the loader returning null leaves no entry behind
+        return Optional.ofNullable(usersByEmail.get(email, key -> userRepository.findByEmail(key).orElse(null)));
+    }
+
+    /**
+     * Removes the cached entry for the given user.
+     * Must be called after any change to the user's profile, password or roles has been saved, and on deletion.
+     * @param user The user whose entry is stale.
+     */
+    public void evict(User user) {
+        usersByEmail.invalidate(user.getEmail());
+    }
+}
@@ -0,0 +1,153 @@
+package io.leedsk1y.taskmanagerx_backend.security.services;
+
+import io.leedsk1y.taskmanagerx_backend.models.RefreshToken;
+import io.leedsk1y.taskmanagerx_backend.models.User;
+import io.leedsk1y.taskmanagerx_backend.repositories.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens. Only a SHA-256 hash of each token is stored, and every
+ * refresh replaces the presented token with a new one from the same family. Presenting a token that
+ * was already rotated is treated as theft and revokes the whole family.
+ * <p>
+ * The exception is a token rotated only moments ago: several tabs of the same browser refresh at about
+ * the same time with the same cookie, and only the first of them sees the new token. A token rotated
+ * within the reuse grace period is therefore exchanged for another token of the family instead.
+ * This lets a stolen token through as well, but only if it is used within that short window.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${spring.app.jwtRefreshExpirationMs}")
+    private long refreshExpirationMs;
+
+    @Value("${spring.app.refreshTokenReuseGraceMs}")
+    private long reuseGraceMs;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    /**
+     * Starts a new refresh token family for a freshly authenticated user.
+     * @param user The authenticated user.
+     * @return The raw refresh token to be set in the refresh cookie.
+     */
+    public String issue(User user) {
+        return create(user, UUID.randomUUID());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one from the same family.
+     * @param rawToken The refresh token taken from the cookie.
+     * @return The owner of the token together with the new raw refresh token.
+     * @throws ResponseStatusException with 401 if the token is unknown, expired, revoked or was rotated
+     *         longer ago than the reuse grace period.
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public RotatedRefreshToken rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHashWithUser(hash(rawToken))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.isRevoked()) {
+            revokeReusedFamily(current);
+        }
+
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token expired");
+        }
+
+        LocalDateTime rotatedAt = current.getRotatedAt();
+        if (rotatedAt == null && refreshTokenRepository.markRotated(current.getId(), now) == 0) {
+            // a concurrent refresh with the same token got there first and has either rotated or revoked it
+            rotatedAt = refreshTokenRepository.findRotatedAtIfNotRevoked(current.getId()).orElse(null);
+            if (rotatedAt == null) {
+                revokeReusedFamily(current);
+            }
+        }
+
+        if (rotatedAt != null && rotatedAt.isBefore(now.minus(reuseGraceMs, ChronoUnit.MILLIS))) {
+            revokeReusedFamily(current);
+        }
+
+        String newToken = create(current.getUser(), current.getFamilyId());
+        return new RotatedRefreshToken(current.getUser(), newToken);
+    }
+
+    /**
+     * Revokes the family of the given refresh token, e.g. on logout. Unknown tokens are ignored.
+     * @param rawToken The refresh token taken from the cookie.
+     * @return UUID of the token's owner, or empty if the token is unknown.
+     */
+    public Optional<UUID> revoke(String rawToken) {
+        return refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .map(token -> {
+                    refreshTokenRepository.revokeFamily(token.getFamilyId());
+                    return token.getUser().getId();
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.revocationPurgeIntervalMs}")
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private void revokeReusedFamily(RefreshToken token) {
+        logger.warn("Refresh token reuse detected for user {}, revoking token family {}",
+                token.getUser().getId(), token.getFamilyId());
+        refreshTokenRepository.revokeFamily(token.getFamilyId());
+        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token reuse detected");
+    }
+
+    private String create(User user, UUID familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUser(user);
+        refreshToken.setExpiresAt(LocalDateTime.now().plus(refreshExpirationMs, ChronoUnit.MILLIS));
+        refreshTokenRepository.save(refreshToken);
+
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record RotatedRefreshToken(User user, String refreshToken) {
+    }
+}
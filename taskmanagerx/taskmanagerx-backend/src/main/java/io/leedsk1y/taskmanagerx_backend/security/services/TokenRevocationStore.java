@@ -0,0 +1,204 @@
+package io.leedsk1y.taskmanagerx_backend.security.services;
+
+import io.leedsk1y.taskmanagerx_backend.models.RevokedToken;
+import io.leedsk1y.taskmanagerx_backend.repositories.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revocation list for JWTs, keyed by the token's jti claim, plus per-user cutoffs that invalidate
+ * every token issued to a user before a given moment (used on account deletion or role changes).
+ * Entries are kept only until the token would have expired anyway, so memory is bounded by the number of
+ * tokens revoked within one token lifetime. Revocations are persisted so that they survive restarts.
+ * Lookups go through a lock-free Bloom filter first, so the common "not revoked" case touches no shared map.
+ */
+@Component
+public class TokenRevocationStore {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+    private static final String USER_KEY_PREFIX = "user:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    // tokenId (or "user:<id>") -> revocation
+    private final Map<String, Revocation> revokedTokens = new ConcurrentHashMap<>();
+
+    // expiry-ordered queue used to evict entries once the token is dead anyway, guarded by "this"
+    private final PriorityQueue<Revocation> expiryQueue =
+            new PriorityQueue<>(Comparator.comparingLong(Revocation::expiresAt));
+
+    // swapped on purge, read without locking
+    private volatile BloomFilter filter = new BloomFilter();
+
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    @PostConstruct
+    void loadPersistedRevocations() {
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            long revokedAt = token.getRevokedAt() != null ? toEpochMillis(token.getRevokedAt()) : 0L;
+            track(new Revocation(token.getTokenId(), toEpochMillis(token.getExpiresAt()), revokedAt));
+        }
+        logger.info("Loaded {} revoked tokens", revokedTokens.size());
+    }
+
+    /**
+     * Revokes a token until its expiry.
+     * @param tokenId The token's jti (or another compact unique id).
+     * @param expiresAt The token's expiry; tokens that are already expired are ignored.
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (expiresAt.toEpochMilli() <= System.currentTimeMillis() || revokedTokens.containsKey(tokenId)) {
+            return;
+        }
+
+        persist(tokenId, expiresAt);
+    }
+
+    /**
+     * Revokes every token issued to a user up to now.
+     * @param userId User UUID.
+     * @param expiresAt The latest expiry of any token issued so far, after which the cutoff can be dropped.
+     */
+    public void revokeAllForUser(UUID userId, Instant expiresAt) {
+        persist(USER_KEY_PREFIX + userId, expiresAt);
+    }
+
+    /**
+     * Checks whether a token has been revoked.
+     * @param tokenId The token's jti.
+     * @return true if the token is revoked and not yet expired.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+
+        Revocation revocation = revokedTokens.get(tokenId);
+        return revocation != null && revocation.expiresAt() > System.currentTimeMillis();
+    }
+
+    /**
+     * Checks whether a token of a user issued at the given time predates a per-user revocation.
+     * @param userId User UUID.
+     * @param issuedAt The token's issue time.
+     * @return true if the token predates a per-user cutoff.
+     */
+    public boolean isRevokedForUser(UUID userId, Instant issuedAt) {
+        String key = USER_KEY_PREFIX + userId;
+        if (!filter.mightContain(key)) {
+            return false;
+        }
+
+        Revocation revocation = revokedTokens.get(key);
+        return revocation != null && issuedAt.toEpochMilli() < revocation.revokedAt();
+    }
+
+    /**
+     * Drops revocations whose tokens have expired, both in memory and in the database,
+     * and rebuilds the Bloom filter so that it does not fill up over time.
+     */
+    @Scheduled(fixedDelayString = "${spring.app.revocationPurgeIntervalMs}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int purged = 0;
+
+        synchronized (this) {
+            while (!expiryQueue.isEmpty() && expiryQueue.peek().expiresAt() <= now) {
+                Revocation expired = expiryQueue.poll();
+                revokedTokens.remove(expired.tokenId(), expired);
+                purged++;
+            }
+
+            if (purged > 0) {
+                BloomFilter rebuilt = new BloomFilter();
+                revokedTokens.keySet().forEach(rebuilt::add);
+                filter = rebuilt;
+            }
+        }
+
+        revokedTokenRepository.deleteExpired(LocalDateTime.now());
+
+        if (purged > 0) {
+            logger.debug("Purged {} expired token revocations, {} remaining", purged, revokedTokens.size());
+        }
+    }
+
+    private void persist(String tokenId, Instant expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        track(new Revocation(tokenId, expiresAt.toEpochMilli(), toEpochMillis(now)));
+
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setTokenId(tokenId);
+        revokedToken.setExpiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()));
+        revokedToken.setRevokedAt(now);
+        revokedTokenRepository.save(revokedToken);
+    }
+
+    private synchronized void track(Revocation revocation) {
+        revokedTokens.put(revocation.tokenId(), revocation);
+        expiryQueue.add(revocation);
+        filter.add(revocation.tokenId());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Revocation(String tokenId, long expiresAt, long revokedAt) {
+    }
+
+    /**
+     * Fixed-size Bloom filter backed by an AtomicLongArray; adds and lookups are lock-free.
+     */
+    private static final class BloomFilter {
+        private static final int BITS = 1 << 20; // 128 KB
+        private static final int HASHES = 3;
+
+        private final AtomicLongArray words = new AtomicLongArray(BITS / Long.SIZE);
+
+        void add(String value) {
+            int h1 = value.hashCode();
+            int h2 = mix(h1);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & (BITS - 1);
+                long mask = 1L << bit;
+                words.accumulateAndGet(bit >>> 6, mask, (word, m) -> word | m);
+            }
+        }
+
+        boolean mightContain(String value) {
+            int h1 = value.hashCode();
+            int h2 = mix(h1);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & (BITS - 1);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int mix(int h) {
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h | 1;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.models.User;
+import io.leedsk1y.taskmanagerx_backend.repositories.RefreshTokenRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
+import io.leedsk1y.taskmanagerx_backend.security.jwt.JwtUtils;
+import io.leedsk1y.taskmanagerx_backend.security.services.PrincipalCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes accounts with set-based statements. The account is first marked deleted and cut off (tokens revoked,
+ * no longer found by email), then purged: small accounts right away with a single DELETE that cascades to
+ * tasks, roles and refresh tokens, large ones in the background in short chunked transactions.
+ * Marked accounts whose purge was interrupted, e.g. by a restart, are picked up again periodically.
+ */
+@Service
+public class AccountDeletionService {
+    private static final Logger logger = LoggerFactory.getLogger(AccountDeletionService.class);
+
+    private final UserRepository userRepository;
+    private final TaskRepository taskRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final PrincipalCache principalCache;
+    private final JwtUtils jwtUtils;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TaskEventHub taskEventHub;
+    private final TaskReadCache taskReadCache;
+
+    private final ExecutorService purgeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "account-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // users whose purge is queued or running
+    private final Set<UUID> pendingPurges = ConcurrentHashMap.newKeySet();
+
+    @Value("${spring.app.accountPurgeSyncMaxTasks}")
+    private long syncMaxTasks;
+
+    @Value("${spring.app.accountPurgeChunkSize}")
+    private int chunkSize;
+
+    public AccountDeletionService(UserRepository userRepository, TaskRepository taskRepository,
+                                  RefreshTokenRepository refreshTokenRepository, PrincipalCache principalCache,
+                                  JwtUtils jwtUtils, TaskSearchIndex taskSearchIndex,
+                                  TaskReadCache taskReadCache, TaskEventHub taskEventHub) {
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.principalCache = principalCache;
+        this.jwtUtils = jwtUtils;
+        this.taskSearchIndex = taskSearchIndex;
+        this.taskReadCache = taskReadCache;
+        this.taskEventHub = taskEventHub;
+    }
+
+    /**
+     * Marks the account deleted, revokes its tokens and purges its data.
+     * @param user The user to delete.
+     */
+    public void deleteAccount(User user) {
+        UUID userId = user.getId();
+
+        userRepository.markDeleted(userId, LocalDateTime.now());
+        principalCache.evict(user);
+        jwtUtils.revokeAllTokensForUser(userId);
+        refreshTokenRepository.revokeAllForUser(userId);
+        taskEventHub.closeUser(userId);
+        taskSearchIndex.removeUser(userId);
+        taskReadCache.invalidate(userId);
+
+        if (taskRepository.countByUserId(userId) <= syncMaxTasks) {
+            userRepository.purgeById(userId);
+        } else {
+            logger.info("Account {} has too many tasks for an inline purge, purging in the background", userId);
+            schedulePurge(userId);
+        }
+    }
+
+    /**
+     * Resumes purges of accounts that are marked deleted but still present.
+     */
+    @Scheduled(fixedDelayString = "${spring.app.accountPurgeIntervalMs}")
+    public void resumePendingPurges() {
+        userRepository.findDeletedUserIds().forEach(this::schedulePurge);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        purgeExecutor.shutdownNow();
+    }
+
+    private void schedulePurge(UUID userId) {
+        if (!pendingPurges.add(userId)) {
+            return;
+        }
+
+        purgeExecutor.execute(() -> {
+            try {
+                purgeInChunks(userId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to purge account {}, will retry", userId, e);
+            } finally {
+                pendingPurges.remove(userId);
+            }
+        });
+    }
+
+    private void purgeInChunks(UUID userId) {
+        long purged = 0;
+        List<UUID> taskIds;
+
+        // each chunk is its own short transaction, so row locks are held only briefly
+        while (!(taskIds = taskRepository.findIdsByUserId(userId, Limit.of(chunkSize))).isEmpty()) {
+            purged += taskRepository.deleteByIdIn(taskIds);
+        }
+
+        userRepository.purgeById(userId);
+        logger.info("Purged account {} with {} tasks", userId, purged);
+    }
+}
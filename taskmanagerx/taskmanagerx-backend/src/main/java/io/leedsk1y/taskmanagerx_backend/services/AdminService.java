@@ -1,6 +1,8 @@
 package io.leedsk1y.taskmanagerx_backend.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.leedsk1y.taskmanagerx_backend.dto.CreateTaskRequestDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskPageResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.UserDetailedResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.models.ERole;
@@ -8,9 +10,15 @@ import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
 import io.leedsk1y.taskmanagerx_backend.models.Task;
 import io.leedsk1y.taskmanagerx_backend.models.User;
 import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSortKey;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSorts;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
 import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,10 +29,25 @@ import java.util.stream.Collectors;
 public class AdminService {
     private final TaskRepository taskRepository;
     private final UserRepository userRepository;
-
-    public AdminService(TaskRepository taskRepository, UserRepository userRepository) {
+    private final AccountDeletionService accountDeletionService;
+    private final TaskPageService taskPageService;
+    private final TaskExportService taskExportService;
+    private final TaskChangeTracker taskChangeTracker;
+    private final TaskPatchService taskPatchService;
+    private final TaskSearchService taskSearchService;
+
+    public AdminService(TaskRepository taskRepository, UserRepository userRepository,
+                        AccountDeletionService accountDeletionService, TaskPageService taskPageService,
+                        TaskExportService taskExportService, TaskChangeTracker taskChangeTracker,
+                        TaskPatchService taskPatchService, TaskSearchService taskSearchService) {
         this.taskRepository = taskRepository;
         this.userRepository = userRepository;
+        this.accountDeletionService = accountDeletionService;
+        this.taskPageService = taskPageService;
+        this.taskExportService = taskExportService;
+        this.taskChangeTracker = taskChangeTracker;
+        this.taskPatchService = taskPatchService;
+        this.taskSearchService = taskSearchService;
     }
 
     /**
@@ -32,9 +55,18 @@ public class AdminService {
      * @return List of all tasks as TaskResponseDTO.
      */
     public List<TaskResponseDTO> getAllTasks() {
-        return taskRepository.findAll().stream()
-                .map(task -> new TaskResponseDTO(task, true))
-                .collect(Collectors.toList());
+        return taskRepository.findTaskResponses(Specification.where(null), Sort.unsorted(), true);
+    }
+
+    /**
+     * Retrieves one page of all tasks, ordered by creation time.
+     * @param cursor Continuation token from the previous page, or null for the first page.
+     * @param limit Maximum number of tasks in the page.
+     * @return Page of tasks with the token for the next page.
+     */
+    public TaskPageResponseDTO getTaskPage(String cursor, int limit) {
+        return taskPageService.findPage(Specification.where(null), TaskSortKey.CREATED_AT, Sort.Direction.ASC,
+                cursor, limit, true);
     }
 
     /**
@@ -54,8 +86,10 @@ public class AdminService {
      * @param taskRequest Task details in DTO format.
      * @return The created task as TaskResponseDTO.
      */
+    @Transactional
     public TaskResponseDTO createTaskByAdmin(CreateTaskRequestDTO taskRequest) {
         User user = userRepository.findById(taskRequest.getUserId())
+                .filter(u -> u.getDeletedAt() == null)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Task newTask = new Task();
@@ -66,7 +100,9 @@ public class AdminService {
         newTask.setStatus(ETaskStatus.PENDING);
         newTask.setCreatedAt(LocalDateTime.now());
 
-        return new TaskResponseDTO(taskRepository.save(newTask), true);
+        TaskResponseDTO created = new TaskResponseDTO(taskRepository.save(newTask), true);
+        taskChangeTracker.recordChange(user.getId(), List.of(created.getId()));
+        return created;
     }
 
     /**
@@ -75,6 +111,7 @@ public class AdminService {
      * @param updatedTask Updated task details.
      * @return Updated task as TaskResponseDTO.
      */
+    @Transactional
     public TaskResponseDTO updateTaskByAdmin(UUID taskId, Task updatedTask) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found"));
@@ -84,7 +121,21 @@ public class AdminService {
         task.setStatus(updatedTask.getStatus());
         task.setDueDate(updatedTask.getDueDate());
 
-        return new TaskResponseDTO(taskRepository.save(task), true);
+        // flushed so that the returned version is the one the update produced
+        TaskResponseDTO updated = new TaskResponseDTO(taskRepository.saveAndFlush(task), true);
+        taskChangeTracker.recordChange(updated.getUserId(), List.of(taskId));
+        return updated;
+    }
+
+    /**
+     * Partially updates any task with a JSON Merge Patch.
+     * @param taskId Task UUID.
+     * @param patch Merge patch document.
+     * @param ifMatch Value of the If-Match header, may be null.
+     * @return Updated task as TaskResponseDTO.
+     */
+    public TaskResponseDTO patchTaskByAdmin(UUID taskId, JsonNode patch, String ifMatch) {
+        return taskPatchService.patch(taskId, null, patch, TaskETags.parseTaskVersion(taskId, ifMatch), true);
     }
 
     /**
@@ -93,26 +144,36 @@ public class AdminService {
      * @param newUserId New user UUID.
      * @return Updated task as TaskResponseDTO.
      */
+    @Transactional
     public TaskResponseDTO reassignTask(UUID taskId, UUID newUserId) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found"));
 
         User newUser = userRepository.findById(newUserId)
+                .filter(u -> u.getDeletedAt() == null)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        UUID previousUserId = task.getUser().getId();
         task.setUser(newUser);
 
-        return new TaskResponseDTO(taskRepository.save(task), true);
+        TaskResponseDTO updated = new TaskResponseDTO(taskRepository.saveAndFlush(task), true);
+        if (!previousUserId.equals(newUserId)) {
+            taskChangeTracker.recordRemoval(previousUserId, List.of(taskId));
+        }
+        taskChangeTracker.recordChange(newUserId, List.of(taskId));
+        return updated;
     }
 
     /**
      * Deletes a task by ID.
      * @param taskId Task UUID.
      */
+    @Transactional
     public void deleteTask(UUID taskId) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found"));
         taskRepository.delete(task);
+        taskChangeTracker.recordRemoval(task.getUser().getId(), List.of(taskId));
     }
 
     /**
@@ -121,20 +182,61 @@ public class AdminService {
      * @param status Task status to filter by.
      * @param dueDateBefore Filter tasks due before this date.
      * @param dueDateAfter Filter tasks due after this date.
+     * @param sort Requested multi-field sort, may be unsorted.
      * @return List of filtered tasks as TaskResponseDTO.
      */
-    public List<TaskResponseDTO> filterTasksForAdmin(String userEmail, ETaskStatus status, LocalDateTime dueDateBefore, LocalDateTime dueDateAfter) {
-        UUID userId = null;
+    public List<TaskResponseDTO> filterTasksForAdmin(String userEmail, ETaskStatus status, LocalDateTime dueDateBefore,
+                                                     LocalDateTime dueDateAfter, Sort sort) {
+        Specification<Task> filter = TaskSpecifications.matching(findUserIdByEmail(userEmail), status,
+                dueDateBefore, dueDateAfter);
 
-        if (userEmail != null && !userEmail.isEmpty()) {
-            User user = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            userId = user.getId();
-        }
+        return taskRepository.findTaskResponses(filter, TaskSorts.resolve(sort, true), true);
+    }
+
+    /**
+     * Filters tasks based on parameters and returns one page, ordered by creation time.
+     * @param userEmail User email to filter by.
+     * @param status Task status to filter by.
+     * @param dueDateBefore Filter tasks due before this date.
+     * @param dueDateAfter Filter tasks due after this date.
+     * @param cursor Continuation token from the previous page, or null for the first page.
+     * @param limit Maximum number of tasks in the page.
+     * @return Page of filtered tasks with the token for the next page.
+     */
+    public TaskPageResponseDTO filterTaskPageForAdmin(String userEmail, ETaskStatus status, LocalDateTime dueDateBefore,
+                                                      LocalDateTime dueDateAfter, String cursor, int limit) {
+        Specification<Task> filter = TaskSpecifications.matching(findUserIdByEmail(userEmail), status,
+                dueDateBefore, dueDateAfter);
+
+        return taskPageService.findPage(filter, TaskSortKey.CREATED_AT, Sort.Direction.ASC, cursor, limit, true);
+    }
 
-        List<Task> tasks = taskRepository.findTasksByFiltersForAdminAndUser(userId, status, dueDateBefore, dueDateAfter);
+    /**
+     * Exports all tasks matching the given filters.
+     * @param userEmail User email to filter by.
+     * @param status Task status to filter by.
+     * @param dueDateBefore Filter tasks due before this date.
+     * @param dueDateAfter Filter tasks due after this date.
+     * @param format Output format.
+     * @return Body that streams the export to the response.
+     */
+    public StreamingResponseBody exportTasks(String userEmail, ETaskStatus status, LocalDateTime dueDateBefore,
+                                             LocalDateTime dueDateAfter, TaskExportService.Format format) {
+        Specification<Task> filter = TaskSpecifications.matching(findUserIdByEmail(userEmail), status,
+                dueDateBefore, dueDateAfter);
 
-        return tasks.stream().map(task -> new TaskResponseDTO(task, true)).collect(Collectors.toList());
+        return taskExportService.export(filter, true, format);
+    }
+
+    /**
+     * Searches tasks by title and description.
+     * @param query Search text.
+     * @param userEmail User email to restrict the search to, or null for all users.
+     * @param limit Maximum number of results.
+     * @return Matching tasks with their owners, best match first.
+     */
+    public List<TaskResponseDTO> searchTasksForAdmin(String query, String userEmail, int limit) {
+        return taskSearchService.search(findUserIdByEmail(userEmail), query, limit, true);
     }
 
     /**
@@ -153,9 +255,22 @@ public class AdminService {
             sort = Sort.by(direction, "dueDate");
         }
 
-        return taskRepository.findAll(sort).stream()
-                .map(task -> new TaskResponseDTO(task, true))
-                .collect(Collectors.toList());
+        return taskRepository.findTaskResponses(Specification.where(null), sort, true);
+    }
+
+    /**
+     * Sorts tasks based on given criteria and returns one page.
+     * @param sortBy Sorting parameter (e.g., "dueDate").
+     * @param order Sorting order ("asc" or "desc").
+     * @param cursor Continuation token from the previous page, or null for the first page.
+     * @param limit Maximum number of tasks in the page.
+     * @return Page of sorted tasks with the token for the next page.
+     */
+    public TaskPageResponseDTO sortTaskPageForAdmin(String sortBy, String order, String cursor, int limit) {
+        Sort.Direction direction = order.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        TaskSortKey key = "userEmail".equalsIgnoreCase(sortBy) ? TaskSortKey.USER_EMAIL : TaskSortKey.DUE_DATE;
+
+        return taskPageService.findPage(Specification.where(null), key, direction, cursor, limit, true);
     }
 
     /**
@@ -163,7 +278,7 @@ public class AdminService {
      * @return List of all users as UserDetailedResponseDTO.
      */
     public List<UserDetailedResponseDTO> getAllUsers() {
-        return userRepository.findAll().stream()
+        return userRepository.findByDeletedAtIsNull().stream()
                 .map(UserDetailedResponseDTO::new)
                 .collect(Collectors.toList());
     }
@@ -175,6 +290,7 @@ public class AdminService {
      */
     public UserDetailedResponseDTO getUserById(UUID userId) {
         User user = userRepository.findById(userId)
+                .filter(u -> u.getDeletedAt() == null)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return new UserDetailedResponseDTO(user);
     }
@@ -185,6 +301,7 @@ public class AdminService {
      */
     public void deleteUserByAdmin(UUID userId) {
         User user = userRepository.findById(userId)
+                .filter(u -> u.getDeletedAt() == null)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         boolean isAdmin = user.getRoles().stream()
@@ -194,11 +311,21 @@ public class AdminService {
             throw new RuntimeException("Cannot delete an admin user.");
         }
 
-        taskRepository.deleteAll(taskRepository.findTasksByUserId(userId));
+        accountDeletionService.deleteAccount(user);
+    }
 
-        user.getRoles().clear();
-        userRepository.save(user);
+    /**
+     * Resolves the optional user email filter to a user ID.
+     * @param userEmail User email, may be null or empty.
+     * @return User UUID, or null if no email was given.
+     */
+    private UUID findUserIdByEmail(String userEmail) {
+        if (userEmail == null || userEmail.isEmpty()) {
+            return null;
+        }
 
-        userRepository.delete(user);
+        return userRepository.findByEmail(userEmail)
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
-}
\ No newline at end of file
+}
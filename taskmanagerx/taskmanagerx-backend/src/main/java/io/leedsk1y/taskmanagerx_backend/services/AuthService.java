@@ -1,15 +1,21 @@
 package io.leedsk1y.taskmanagerx_backend.services;
 
+import io.jsonwebtoken.Claims;
+import io.leedsk1y.taskmanagerx_backend.dto.AuthTokensDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.RegisterRequestDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.UserDetailedResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.models.EAuthProvider;
 import io.leedsk1y.taskmanagerx_backend.models.ERole;
 import io.leedsk1y.taskmanagerx_backend.models.Role;
 import io.leedsk1y.taskmanagerx_backend.models.User;
+import io.leedsk1y.taskmanagerx_backend.repositories.RefreshTokenRepository;
 import io.leedsk1y.taskmanagerx_backend.repositories.RoleRepository;
 import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
 import io.leedsk1y.taskmanagerx_backend.security.jwt.CookieUtils;
 import io.leedsk1y.taskmanagerx_backend.security.jwt.JwtUtils;
+import io.leedsk1y.taskmanagerx_backend.security.services.LoginAttemptThrottle;
+import io.leedsk1y.taskmanagerx_backend.security.services.PrincipalCache;
+import io.leedsk1y.taskmanagerx_backend.security.services.RefreshTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
@@ -33,15 +39,27 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final PrincipalCache principalCache;
+    private final LoginAttemptThrottle loginAttemptThrottle;
+    private final RefreshTokenService refreshTokenService;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TaskEventHub taskEventHub;
 
     public AuthService(UserRepository userRepository, RoleRepository roleRepository,
                        PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager,
-                       JwtUtils jwtUtils) {
+                       JwtUtils jwtUtils, PrincipalCache principalCache, LoginAttemptThrottle loginAttemptThrottle,
+                       RefreshTokenService refreshTokenService, RefreshTokenRepository refreshTokenRepository,
+                       TaskEventHub taskEventHub) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
+        this.principalCache = principalCache;
+        this.loginAttemptThrottle = loginAttemptThrottle;
+        this.refreshTokenService = refreshTokenService;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.taskEventHub = taskEventHub;
     }
 
     /**
@@ -70,33 +88,59 @@ public class AuthService {
     }
 
     /**
-     * Authenticates the user by checking the provided email and password, and generates a JWT token for the authenticated user.
+     * Authenticates the user by checking the provided email and password, and generates a JWT token
+     * and a refresh token for the authenticated user.
      * @param email The email of the user trying to authenticate.
      * @param password The password of the user.
-     * @return The generated JWT token used for authenticating future requests.
+     * @param clientIp The IP address of the client, used for brute-force throttling.
+     * @return The generated JWT and refresh tokens used for authenticating future requests.
      * @throws RuntimeException if authentication fails due to invalid credentials.
+     * @throws ResponseStatusException with 429 if the email or client IP is throttled.
      */
-    public String authenticateUser(String email, String password) {
+    public AuthTokensDTO authenticateUser(String email, String password, String clientIp) {
+        // rejected before any user lookup or password hashing
+        loginAttemptThrottle.acquire(email, clientIp);
+
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(email.toLowerCase(), password)
             );
+            loginAttemptThrottle.recordSuccess(email, clientIp);
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
-
-            User user = userRepository.findByEmail(email.toLowerCase())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-            return jwtUtils.generateTokenFromUsername(user.getUsername());
         } catch (AuthenticationException e) {
+            loginAttemptThrottle.recordFailure(email, clientIp);
             throw new RuntimeException("Invalid email or password");
+        } catch (RuntimeException e) {
+            loginAttemptThrottle.release(email, clientIp); // e.g. the password hashing pool is saturated
+            throw e;
         }
+
+        User user = principalCache.findByEmail(email.toLowerCase())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        return new AuthTokensDTO(jwtUtils.generateTokenFromUser(user), refreshTokenService.issue(user));
     }
 
     /**
-     * Logs out the user by blacklisting the JWT token and clearing the authentication cookie.
+     * Issues a new access token and rotates the refresh token, without going through the password check.
+     * @param refreshToken The refresh token taken from the refresh cookie.
+     * @return The new JWT and refresh tokens.
+     * @throws ResponseStatusException with 401 if the refresh token is missing, invalid, expired or reused.
+     */
+    public AuthTokensDTO refreshTokens(String refreshToken) {
+        if (refreshToken == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token is missing");
+        }
+
+        RefreshTokenService.RotatedRefreshToken rotated = refreshTokenService.rotate(refreshToken);
+        return new AuthTokensDTO(jwtUtils.generateTokenFromUser(rotated.user()), rotated.refreshToken());
+    }
+
+    /**
+     * Logs out the user by blacklisting the JWT token, revoking the refresh token and clearing both cookies.
+     * The user's task event streams are ended as well; those of other sessions reconnect on their own.
      * @param request The HTTP request containing the JWT token to be blacklisted.
-     * @param response The HTTP response where the JWT cookie will be cleared.
+     * @param response The HTTP response where the cookies will be cleared.
      */
     public void logoutUser(HttpServletRequest request, HttpServletResponse response) {
         String token = jwtUtils.getJwtFromCookies(request);
@@ -105,7 +149,14 @@ public class AuthService {
             jwtUtils.blacklistToken(token);
         }
 
+        String refreshToken = CookieUtils.getRefreshTokenFromCookies(request);
+
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken).ifPresent(taskEventHub::closeUser);
+        }
+
         CookieUtils.clearJwtCookie(response);
+        CookieUtils.clearRefreshCookie(response);
     }
 
     /**
@@ -118,15 +169,16 @@ public class AuthService {
      */
     public UserDetailedResponseDTO getAuthenticatedUser(HttpServletRequest request, HttpServletResponse response) {
         String token = jwtUtils.getJwtFromCookies(request);
+        Claims claims = token != null ? jwtUtils.parseAndValidateJwtToken(token, response) : null;
 
-        if (token == null || !jwtUtils.validateJwtToken(token, response)) {
+        if (claims == null) {
             CookieUtils.clearJwtCookie(response);
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired token");
         }
 
-        String email = jwtUtils.getUserNameFromJwtToken(token);
+        String email = claims.getSubject();
 
-        Optional<User> userOptional = userRepository.findByEmail(email);
+        Optional<User> userOptional = principalCache.findByEmail(email);
         if (userOptional.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
@@ -135,11 +187,14 @@ public class AuthService {
     }
 
     /**
-     * Updates the password of the authenticated user.
+     * Updates the password of the authenticated user and signs out all of the user's sessions: access and refresh
+     * tokens issued so far are revoked and task event streams are ended. The current session continues with the
+     * returned tokens.
      * @param oldPassword The user's current password.
      * @param newPassword The new password to be set.
+     * @return New JWT and refresh tokens for the current session.
      */
-    public void updatePassword(String oldPassword, String newPassword) {
+    public AuthTokensDTO updatePassword(String oldPassword, String newPassword) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -150,5 +205,12 @@ public class AuthService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.evict(user);
+
+        refreshTokenRepository.revokeAllForUser(user.getId());
+        jwtUtils.revokeAllTokensForUser(user.getId());
+        taskEventHub.closeUser(user.getId());
+
+        return new AuthTokensDTO(jwtUtils.generateTokenFromUser(user), refreshTokenService.issue(user));
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads profile images into the image cache in the background, so the first page after a login finds its
+ * avatar cached instead of waiting for the upstream. A request for an avatar still being prefetched joins
+ * that fetch instead of starting another.
+ * <p>
+ * Prefetches run one at a time on a single thread, no more than a configured number per second, so a burst
+ * of logins cannot flood the upstream. A URL already queued is not queued again, and when the queue is full
+ * further prefetches are dropped; the image is then simply fetched on first use.
+ */
+@Component
+public class AvatarPrefetcher {
+    private static final Logger logger = LoggerFactory.getLogger(AvatarPrefetcher.class);
+
+    private final ImageProxyService imageProxyService;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final long intervalNanos;
+    private final Counter doneCounter;
+    private final Counter failedCounter;
+    private final Counter droppedCounter;
+    private long nextStart; // only used by the executor's single thread
+
+    public AvatarPrefetcher(ImageProxyService imageProxyService, MeterRegistry meterRegistry,
+                            @Value("${spring.app.imagePrefetchQueueCapacity}") int queueCapacity,
+                            @Value("${spring.app.imagePrefetchPerSecond}") int perSecond) {
+        this.imageProxyService = imageProxyService;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / perSecond;
+        this.nextStart = System.nanoTime();
+
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "avatar-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.doneCounter = Counter.builder("image.prefetch").tag("result", "done").register(meterRegistry);
+        this.failedCounter = Counter.builder("image.prefetch").tag("result", "failed").register(meterRegistry);
+        this.droppedCounter = Counter.builder("image.prefetch").tag("result", "dropped").register(meterRegistry);
+        Gauge.builder("image.prefetch.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a profile image for prefetching, unless it is queued already. Returns immediately.
+     * @param url The URL of the image, may be null.
+     */
+    public void prefetch(String url) {
+        if (url == null || url.isBlank() || !queued.add(url)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> run(url));
+        } catch (RejectedExecutionException e) {
+            queued.remove(url);
+            droppedCounter.increment();
+        }
+    }
+
+    private void run(String url) {
+        try {
+            throttle();
+            imageProxyService.prefetchImage(url);
+            doneCounter.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            logger.debug("Could not prefetch profile image {}: {}", url, e.getMessage());
+        } finally {
+            queued.remove(url);
+        }
+    }
+
+    private void throttle() throws InterruptedException {
+        long now = System.nanoTime();
+        if (nextStart - now > 0) {
+            TimeUnit.NANOSECONDS.sleep(nextStart - now);
+            now = nextStart;
+        }
+        nextStart = now + intervalNanos;
+    }
+}
@@ -0,0 +1,181 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of proxied images, keyed by upstream URL (thumbnails by a key of their own) and bounded by
+ * the total size of the stored files.
+ * The index lives in memory; each stored version of an image is a file of its own, so replacing or evicting
+ * an entry never touches a file another entry points to. The files are kept in a directory of this instance,
+ * created at startup and removed at shutdown.
+ */
+@Component
+public class ImageCache {
+    private static final Logger logger = LoggerFactory.getLogger(ImageCache.class);
+
+    // a removed file may still be being sent; deleting it a little later lets those responses finish
+    private static final Executor DELAYED_DELETE = CompletableFuture.delayedExecutor(1, TimeUnit.MINUTES);
+
+    private final Path directory;
+    private final Cache<String, Entry> entries;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public ImageCache(MeterRegistry meterRegistry,
+                      @Value("${spring.app.imageCacheDir}") Path parentDirectory,
+                      @Value("${spring.app.imageCacheMaxBytes}") long maxBytes) throws IOException {
+        this.directory = Files.createTempDirectory(Files.createDirectories(parentDirectory), "images-");
+
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> (int) Math.min(entry.size(), Integer.MAX_VALUE))
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    // a replaced entry's file is released by put, which knows whether the new entry still uses it
+                    if (entry != null && cause != RemovalCause.REPLACED) {
+                        deleteLater(entry.file());
+                    }
+                })
+                .build();
+
+        this.hitCounter = Counter.builder("image.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("image.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("image.cache.bytes", entries,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        entries.invalidateAll();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(this::delete);
+        } catch (IOException e) {
+            logger.warn("Could not remove image cache directory {}", directory, e);
+        }
+    }
+
+    /**
+     * Looks up the cached version of an image.
+     * @param key Upstream URL or thumbnail key.
+     * @return The cached entry, possibly stale, or null.
+     */
+    public Entry get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        (entry != null && entry.isFresh() ? hitCounter : missCounter).increment();
+        return entry;
+    }
+
+    /**
+     * Creates an empty file in the cache directory, to download an image into before it is stored with put.
+     * @return Path of the new file.
+     * @throws IOException if the file cannot be created.
+     */
+    public Path createFile() throws IOException {
+        return Files.createTempFile(directory, "image-", ".bin");
+    }
+
+    /**
+     * Stores a downloaded image or thumbnail, replacing any previous version.
+     * @param key Upstream URL or thumbnail key.
+     * @param entry Entry whose file was created with createFile.
+     * @return The stored entry.
+     */
+    public Entry put(String key, Entry entry) {
+        Entry previous = entries.asMap().put(key, entry);
+        if (previous != null && !previous.file().equals(entry.file())) {
+            deleteLater(previous.file());
+        }
+        return entry;
+    }
+
+    /**
+     * Extends the freshness of an entry the upstream confirmed to be unchanged.
+     * @param url Upstream URL.
+     * @param entry The revalidated entry.
+     * @param expiresAt New expiry.
+     * @return The updated entry, or the given one if it has been evicted or replaced meanwhile.
+     */
+    public Entry revalidate(String url, Entry entry, Instant expiresAt) {
+        Entry revalidated = entry.withExpiresAt(expiresAt);
+        Entry current = entries.asMap().computeIfPresent(url, (key, existing) ->
+                existing.file().equals(entry.file()) ? revalidated : existing);
+        return current != null && current.file().equals(entry.file()) ? revalidated : entry;
+    }
+
+    /**
+     * Deletes a file of the cache directory that is not stored in the cache, once responses that may still
+     * be sending it have finished.
+     * @param file Path of the file.
+     */
+    public void deleteLater(Path file) {
+        DELAYED_DELETE.execute(() -> delete(file));
+    }
+
+    /**
+     * Deletes a file of the cache directory, such as a download that was not stored.
+     * @param file Path of the file.
+     */
+    public void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete cached image {}", file, e);
+        }
+    }
+
+    /**
+     * A stored image.
+     * @param file File holding the image.
+     * @param size Size of the file in bytes.
+     * @param contentType Content type of the image.
+     * @param etag Entity tag derived from the content, as sent to clients.
+     * @param upstreamEtag Entity tag of the upstream, for revalidation, or null.
+     * @param upstreamLastModified Last-Modified header of the upstream, for revalidation, or null.
+     * @param expiresAt Time until which the image may be served without revalidation, or null if the
+     *                  upstream does not allow storing it.
+     */
+    public record Entry(Path file, long size, MediaType contentType, String etag, String upstreamEtag,
+                        String upstreamLastModified, Instant expiresAt) {
+
+        public boolean isFresh() {
+            return expiresAt != null && Instant.now().isBefore(expiresAt);
+        }
+
+        /**
+         * @return How much longer the image is fresh, zero once it is stale.
+         */
+        public Duration freshFor() {
+            if (expiresAt == null) {
+                return Duration.ZERO;
+            }
+            Duration remaining = Duration.between(Instant.now(), expiresAt);
+            return remaining.isNegative() ? Duration.ZERO : remaining;
+        }
+
+        Entry withExpiresAt(Instant expiresAt) {
+            return new Entry(file, size, contentType, etag, upstreamEtag, upstreamLastModified, expiresAt);
+        }
+    }
+}
@@ -1,39 +1,712 @@
 package io.leedsk1y.taskmanagerx_backend.services;
 
-import org.springframework.http.HttpEntity;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.http.io.EofSensorInputStream;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
+/**
+ * Proxies profile images through the backend. A single pooled HTTP client is shared by all requests; connecting,
+ * waiting for a pooled connection and every read are bounded by timeouts, and the whole download by a deadline.
+ * The upstream body is read through a small buffer and cut off at a maximum size, so a proxied image costs
+ * a fixed amount of memory however large or slow the upstream is.
+ * <p>
+ * Images are kept in the ImageCache for as long as the upstream's Cache-Control allows and revalidated with
+ * its validators after that. Clients get an ETag and Cache-Control of their own, so browsers reuse an image
+ * without asking while it is fresh. Thumbnails for avatars are made by the ImageThumbnailer in a fixed set
+ * of sizes and cached next to the originals.
+ * <p>
+ * On a miss, the request that fetches an original image streams it to its client while writing the cache file,
+ * so the first bytes go out as soon as the upstream sends them. Requests for the same image arriving meanwhile,
+ * and requests for thumbnails, which need the whole image, wait until the file is complete.
+ */
 @Service
 public class ImageProxyService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageProxyService.class);
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    // request attributes of Tomcat's sendfile support, see org.apache.coyote.Constants
+    private static final String SENDFILE_SUPPORTED_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    private final ImageCache imageCache;
+    private final CloseableHttpClient httpClient;
+    private final RestClient restClient;
+    private final ImageThumbnailer imageThumbnailer;
+    private final ConcurrentMap<String, CompletableFuture<ImageCache.Entry>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${spring.app.imageProxyMaxBytes}")
+    private long maxBytes;
+
+    @Value("${spring.app.imageProxyTotalTimeoutMs}")
+    private long totalTimeoutMs;
+
+    @Value("${spring.app.imageCacheDefaultTtlMs}")
+    private long defaultTtlMs;
+
+    @Value("${spring.app.imageCacheMaxTtlMs}")
+    private long maxTtlMs;
+
+    @Value("${spring.app.imageThumbnailSizes}")
+    private List<Integer> thumbnailSizes;
+
+    @Value("${spring.app.imageThumbnailTimeoutMs}")
+    private long thumbnailTimeoutMs;
+
+    @Value("${spring.app.imagePrefetchSizes}")
+    private List<Integer> prefetchSizes;
+
+    public ImageProxyService(ImageCache imageCache, ImageThumbnailer imageThumbnailer,
+                             @Value("${spring.app.imageProxyConnectTimeoutMs}") long connectTimeoutMs,
+                             @Value("${spring.app.imageProxyReadTimeoutMs}") long readTimeoutMs,
+                             @Value("${spring.app.imageProxyPoolTimeoutMs}") long poolTimeoutMs,
+                             @Value("${spring.app.imageProxyMaxConnections}") int maxConnections,
+                             @Value("${spring.app.imageProxyMaxConnectionsPerHost}") int maxConnectionsPerHost) {
+        this.imageCache = imageCache;
+        this.imageThumbnailer = imageThumbnailer;
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnectionsPerHost)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .disableCookieManagement()
+                .build();
+
+        this.restClient = RestClient.builder()
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .defaultHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0")
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        httpClient.close();
+    }
 
     /**
-     * Fetches an image from a given URL.
+     * Fetches an image from a given URL, from the cache while it is fresh, optionally scaled down to a thumbnail.
+     * Concurrent requests for an image or thumbnail that is not cached are coalesced into a single upstream fetch
+     * or resize, which the others wait for.
      * @param url The URL of the image to fetch.
-     * @return A ResponseEntity containing the image as a byte array, or an error response if the request fails.
+     * @param size Length of the thumbnail's shorter side in pixels, or null for the original image.
+     * @param request The HTTP request, for its conditional headers.
+     * @return A ResponseEntity with the image, its content type, length, ETag and Cache-Control,
+     *         or 304 if the client's copy is still current.
+     * @throws ResponseStatusException with 400 for an invalid URL or size, 502 if the upstream fails or does not
+     *         return an acceptable image, 503 if no pooled connection or thumbnail worker frees up in time, or 504
+     *         if the upstream does not answer in time. A stale cached image is served instead of upstream failures.
+     */
+    public ResponseEntity<StreamingResponseBody> fetchImage(String url, Integer size, HttpServletRequest request) {
+        URI uri = parseUri(url);
+        if (size != null && !thumbnailSizes.contains(size)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Image size must be one of " + thumbnailSizes);
+        }
+
+        if (size == null) {
+            ResponseEntity<StreamingResponseBody> streamed = streamMissing(uri, request);
+            if (streamed != null) {
+                return streamed;
+            }
+        }
+
+        ImageCache.Entry original = original(uri);
+        ImageCache.Entry image = size != null ? thumbnail(original, size) : original;
+
+        // a thumbnail is as fresh as the image it was made from
+        return serve(image, cacheControl(original), request);
+    }
+
+    /**
+     * Loads an image and the thumbnails configured for prefetching into the cache, unless they are cached
+     * and fresh already.
+     * @param url The URL of the image.
+     * @throws ResponseStatusException for the same reasons as fetchImage.
+     */
+    public void prefetchImage(String url) {
+        ImageCache.Entry original = original(parseUri(url));
+        for (int size : prefetchSizes) {
+            thumbnail(original, size);
+        }
+    }
+
+    /**
+     * Returns the cached image, fetching it first if it is missing or stale. If refreshing a stale image
+     * fails upstream, the stale image is returned.
+     */
+    private ImageCache.Entry original(URI uri) {
+        String key = uri.toString();
+        ImageCache.Entry cached = imageCache.get(key);
+        if (cached != null && cached.isFresh()) {
+            return cached;
+        }
+
+        try {
+            return coalesce(key, totalTimeoutMs, () -> download(uri, key, cached));
+        } catch (ResponseStatusException e) {
+            if (cached == null || e.getStatusCode().is4xxClientError()) {
+                throw e;
+            }
+            logger.debug("Serving stale image after upstream failure: {}", e.getReason());
+            return cached;
+        }
+    }
+
+    /**
+     * Fetches an original image that is missing or stale in the cache and streams it to the client while it is
+     * written to the cache file. Other requests for the image wait for the file through the in-flight future,
+     * as with any other fetch.
+     * @return The response, or null if the image is to be served from the cache because it is fresh there or
+     *         another request is already fetching it.
+     */
+    private ResponseEntity<StreamingResponseBody> streamMissing(URI uri, HttpServletRequest request) {
+        String key = uri.toString();
+        ImageCache.Entry cached = imageCache.get(key);
+        if (cached != null && cached.isFresh()) {
+            return null;
+        }
+
+        CompletableFuture<ImageCache.Entry> loading = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, loading) != null) {
+            return null;
+        }
+
+        Fetch fetch;
+        try {
+            fetch = openFetch(uri, key, cached);
+        } catch (RuntimeException e) {
+            finish(key, loading, null, e);
+            if (cached == null || !(e instanceof ResponseStatusException statusException)
+                    || statusException.getStatusCode().is4xxClientError()) {
+                throw e;
+            }
+            logger.debug("Serving stale image after upstream failure: {}", statusException.getReason());
+            return serve(cached, cacheControl(cached), request);
+        }
+
+        if (fetch.revalidated() != null) {
+            finish(key, loading, fetch.revalidated(), null);
+            return serve(fetch.revalidated(), cacheControl(fetch.revalidated()), request);
+        }
+
+        // no ETag: it is the hash of the content, known only once the whole image has been read
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(fetch.contentType())
+                .cacheControl(fetch.freshness() != null
+                        ? CacheControl.maxAge(fetch.freshness()).cachePrivate() : CacheControl.noStore())
+                .header("X-Content-Type-Options", "nosniff");
+        long contentLength = fetch.upstream().getHeaders().getContentLength();
+        if (contentLength >= 0) {
+            response.contentLength(contentLength);
+        }
+
+        return response.body(outputStream -> {
+            try {
+                finish(key, loading, completeFetch(key, fetch, outputStream), null);
+            } catch (RuntimeException e) {
+                finish(key, loading, null, e);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Fetches an image into the cache, or only revalidates the cached one if the upstream reports it unchanged.
+     */
+    private ImageCache.Entry download(URI uri, String key, ImageCache.Entry cached) {
+        Fetch fetch = openFetch(uri, key, cached);
+        return fetch.revalidated() != null ? fetch.revalidated() : completeFetch(key, fetch, null);
+    }
+
+    /**
+     * Sends the upstream request for a missing or stale image. If the upstream reports the cached image unchanged,
+     * only its freshness is extended; otherwise the response is checked and left open for completeFetch.
+     */
+    private Fetch openFetch(URI uri, String key, ImageCache.Entry cached) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(totalTimeoutMs);
+
+        ClientHttpResponse upstream = open(uri, cached);
+        if (cached != null && isNotModified(upstream)) {
+            Duration freshness = freshness(upstream.getHeaders());
+            upstream.close();
+            return new Fetch(null, null, null, deadline, imageCache.revalidate(key, cached,
+                    Instant.now().plus(freshness != null ? freshness : Duration.ZERO)));
+        }
+
+        MediaType contentType = checkImage(upstream);
+        return new Fetch(upstream, contentType, freshness(upstream.getHeaders()), deadline, null);
+    }
+
+    /**
+     * Reads the body of an opened fetch into a new cache file, copying it to the client as well if one is given.
+     * An image the upstream does not allow storing is written to a file all the same, to be served to the waiting
+     * requests, but is not added to the cache.
+     * @param client Output stream of the client's response, or null.
+     */
+    private ImageCache.Entry completeFetch(String key, Fetch fetch, OutputStream client) {
+        if (fetch.freshness() == null) {
+            ImageCache.Entry entry = store(fetch.upstream(), fetch.contentType(), null, fetch.deadline(), client);
+            imageCache.deleteLater(entry.file());
+            return entry;
+        }
+        return imageCache.put(key, store(fetch.upstream(), fetch.contentType(),
+                Instant.now().plus(fetch.freshness()), fetch.deadline(), client));
+    }
+
+    /**
+     * Returns the cached thumbnail of an image, creating it first if needed. Thumbnails are keyed by the
+     * image's content hash, so a changed image gets new thumbnails and the old ones are evicted unused.
+     * An image that cannot be scaled down is copied as its own thumbnail, so it is not decoded again.
+     */
+    private ImageCache.Entry thumbnail(ImageCache.Entry original, int size) {
+        String key = original.etag() + "@" + size;
+        ImageCache.Entry cached = imageCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return coalesce(key, thumbnailTimeoutMs, () -> {
+            Path file;
+            try {
+                file = imageCache.createFile();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create image cache file", e);
+            }
+
+            MessageDigest digest = sha256();
+            MediaType contentType;
+            try (OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+                contentType = imageThumbnailer.writeThumbnail(original.file(), size, outputStream);
+                if (contentType == null) {
+                    contentType = original.contentType();
+                    Files.copy(original.file(), outputStream);
+                }
+            } catch (IOException | RuntimeException e) {
+                imageCache.delete(file);
+                if (e instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Could not write thumbnail", e);
+            }
+
+            ImageCache.Entry thumbnail = new ImageCache.Entry(file, file.toFile().length(), contentType, etag(digest),
+                    null, null, original.expiresAt() != null ? Instant.MAX : null);
+            if (thumbnail.expiresAt() == null) {
+                imageCache.deleteLater(file);
+                return thumbnail;
+            }
+            return imageCache.put(key, thumbnail);
+        });
+    }
+
+    /**
+     * Runs a loader unless one is already running for the same key, in which case its result is awaited.
+     * @param timeoutMs How long to wait for a running loader.
+     */
+    private ImageCache.Entry coalesce(String key, long timeoutMs, Supplier<ImageCache.Entry> loader) {
+        CompletableFuture<ImageCache.Entry> loading = new CompletableFuture<>();
+        CompletableFuture<ImageCache.Entry> running = inFlight.putIfAbsent(key, loading);
+
+        if (running == null) {
+            try {
+                ImageCache.Entry entry = loader.get();
+                finish(key, loading, entry, null);
+                return entry;
+            } catch (RuntimeException e) {
+                finish(key, loading, null, e);
+                throw e;
+            }
+        }
+
+        try {
+            return running.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResponseStatusException statusException) {
+                throw statusException;
+            }
+            throw new IllegalStateException("Image could not be loaded", e.getCause());
+        } catch (TimeoutException e) {
+            // a fetch streamed to a client whose response never started writing would otherwise block the key
+            inFlight.remove(key, running);
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Image could not be fetched");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Image could not be fetched");
+        }
+    }
+
+    private void finish(String key, CompletableFuture<ImageCache.Entry> loading, ImageCache.Entry entry,
+                        RuntimeException failure) {
+        if (failure != null) {
+            loading.completeExceptionally(failure);
+        } else {
+            loading.complete(entry);
+        }
+        inFlight.remove(key, loading);
+    }
+
+    /**
+     * Sends the upstream request, conditional if a cached entry is to be revalidated.
+     * @return A response with a 2xx status, or 304 for a conditional request.
+     */
+    private ClientHttpResponse open(URI uri, ImageCache.Entry cached) {
+        ClientHttpResponse upstream;
+        try {
+            upstream = restClient.get().uri(uri).headers(headers -> {
+                if (cached != null && cached.upstreamEtag() != null) {
+                    headers.setIfNoneMatch(cached.upstreamEtag());
+                }
+                if (cached != null && cached.upstreamLastModified() != null) {
+                    headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.upstreamLastModified());
+                }
+            }).exchange((req, response) -> response, false);
+        } catch (ResourceAccessException e) {
+            if (e.getCause() instanceof ConnectionRequestTimeoutException) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many image requests, please try again later");
+            }
+            throw new ResponseStatusException(e.getCause() instanceof InterruptedIOException
+                    ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY, "Image could not be fetched");
+        }
+
+        try {
+            HttpStatusCode status = upstream.getStatusCode();
+            if (status.is2xxSuccessful() || status == HttpStatus.NOT_MODIFIED && cached != null) {
+                return upstream;
+            }
+        } catch (IOException ignored) {
+            // handled below like any other failure
+        }
+        abort(upstream);
+        throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Image could not be fetched");
+    }
+
+    private static boolean isNotModified(ClientHttpResponse upstream) {
+        try {
+            return upstream.getStatusCode() == HttpStatus.NOT_MODIFIED;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks that the upstream returned an image of acceptable type and size, before any of it is read.
+     * @return The upstream content type.
+     */
+    private MediaType checkImage(ClientHttpResponse upstream) {
+        MediaType contentType = upstream.getHeaders().getContentType();
+        // SVG can carry scripts, which would run with this origin if the image were opened directly
+        if (contentType == null || !contentType.getType().equals("image") || contentType.getSubtype().contains("svg")) {
+            abort(upstream);
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Upstream did not return an image");
+        }
+        if (upstream.getHeaders().getContentLength() > maxBytes) {
+            abort(upstream);
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Image is too large");
+        }
+        return contentType;
+    }
+
+    /**
+     * Downloads the upstream body into a new cache file, hashing it for the ETag on the way.
+     * @param client Output stream to copy the body to as well, or null. If the client goes away, the download
+     *        still completes for the cache.
+     * @return The entry for the file; not yet stored in the cache.
+     */
+    private ImageCache.Entry store(ClientHttpResponse upstream, MediaType contentType, Instant expiresAt, long deadline,
+                                   OutputStream client) {
+        Path file;
+        try {
+            file = imageCache.createFile();
+        } catch (IOException e) {
+            abort(upstream);
+            throw new IllegalStateException("Could not create image cache file", e);
+        }
+
+        MessageDigest digest = sha256();
+        long size;
+        try (OutputStream fileStream = new DigestOutputStream(Files.newOutputStream(file), digest);
+             OutputStream outputStream = client != null ? new TeeOutputStream(fileStream, client) : fileStream) {
+            size = copy(upstream, outputStream, deadline);
+        } catch (IOException e) {
+            imageCache.delete(file);
+            throw new ResponseStatusException(e instanceof InterruptedIOException
+                    ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY, "Image could not be fetched");
+        }
+
+        HttpHeaders headers = upstream.getHeaders();
+        return new ImageCache.Entry(file, size, contentType, etag(digest),
+                headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED), expiresAt);
+    }
+
+    /**
+     * Serves a cached image. Browsers may keep it for as long as it stays fresh here, and revalidate it with
+     * its ETag after that. The file is handed to Tomcat's sendfile where available, so it goes from the page
+     * cache to the socket without being copied through the JVM; otherwise it is transferred from a FileChannel.
+     */
+    private static CacheControl cacheControl(ImageCache.Entry original) {
+        return original.expiresAt() != null
+                ? CacheControl.maxAge(original.freshFor()).cachePrivate() : CacheControl.noStore();
+    }
+
+    private ResponseEntity<StreamingResponseBody> serve(ImageCache.Entry entry, CacheControl cacheControl,
+                                                        HttpServletRequest request) {
+        if (new ServletWebRequest(request).checkNotModified(entry.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.etag()).cacheControl(cacheControl).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(entry.contentType())
+                .contentLength(entry.size())
+                .eTag(entry.etag())
+                .cacheControl(cacheControl)
+                .header("X-Content-Type-Options", "nosniff");
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, entry.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, entry.size());
+            return response.build();
+        }
+
+        return response.body(outputStream -> {
+            try (FileChannel channel = FileChannel.open(entry.file())) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = 0;
+                while (position < entry.size()) {
+                    position += channel.transferTo(position, entry.size() - position, target);
+                }
+            }
+        });
+    }
+
+    /**
+     * How long an upstream image may be served from the cache, from its Cache-Control or Expires header,
+     * or null if it must not be stored. No credentials are ever sent upstream, so "private" does not apply.
      */
-    public ResponseEntity<byte[]> fetchImage(String url) {
+    private Duration freshness(HttpHeaders headers) {
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-store")) {
+                    return null;
+                } else if (directive.equals("no-cache")) {
+                    sharedMaxAge = 0L;
+                } else if (directive.startsWith("s-maxage=") && sharedMaxAge == null) {
+                    sharedMaxAge = parseSeconds(directive.substring("s-maxage=".length()));
+                } else if (directive.startsWith("max-age=")) {
+                    maxAge = parseSeconds(directive.substring("max-age=".length()));
+                }
+            }
+        }
+
+        Duration freshness;
+        if (sharedMaxAge != null || maxAge != null) {
+            freshness = Duration.ofSeconds(sharedMaxAge != null ? sharedMaxAge : maxAge);
+        } else if (headers.getExpires() >= 0) {
+            freshness = Duration.ofMillis(headers.getExpires() - System.currentTimeMillis());
+        } else {
+            freshness = Duration.ofMillis(defaultTtlMs);
+        }
+
+        if (freshness.isNegative()) {
+            return Duration.ZERO;
+        }
+        return freshness.compareTo(Duration.ofMillis(maxTtlMs)) > 0 ? Duration.ofMillis(maxTtlMs) : freshness;
+    }
+
+    private static Long parseSeconds(String value) {
+        try {
+            return Long.parseLong(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String etag(MessageDigest digest) {
+        return "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Copies the upstream body, enforcing the size limit and the deadline as it goes. Once a response to the
+     * client has started, a violation can only abort it, which the client sees as a truncated image.
+     * @return The number of bytes copied.
+     */
+    private long copy(ClientHttpResponse upstream, OutputStream outputStream, long deadline) throws IOException {
+        long total = 0;
+        boolean complete = false;
+        try {
+            InputStream body = upstream.getBody();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IOException("Image exceeds " + maxBytes + " bytes");
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("Image download exceeded " + totalTimeoutMs + " ms");
+                }
+                outputStream.write(buffer, 0, read);
+            }
+            complete = true;
+        } finally {
+            if (complete) {
+                upstream.close();
+            } else {
+                abort(upstream);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Closes an upstream response that was not read to the end. Closing alone would read the rest of the body
+     * to keep the connection for reuse, which for an oversized or trickling upstream is exactly what the limits
+     * are meant to prevent, so the connection is dropped instead.
+     */
+    private static void abort(ClientHttpResponse upstream) {
         try {
-            RestTemplate restTemplate = new RestTemplate();
+            if (upstream.getBody() instanceof EofSensorInputStream body) {
+                body.abort();
+            }
+        } catch (IOException ignored) {
+            // the connection is discarded either way
+        }
+        upstream.close();
+    }
+
+    private static URI parseUri(String url) {
+        try {
+            URI uri = new URI(url);
+            if (!"https".equalsIgnoreCase(uri.getScheme()) && !"http".equalsIgnoreCase(uri.getScheme())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only http and https image URLs are supported");
+            }
+            return uri;
+        } catch (URISyntaxException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid image URL");
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", "Mozilla/5.0");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+    /**
+     * An upstream request in progress: either an open response whose body is still to be read, or the cached
+     * entry it revalidated.
+     */
+    private record Fetch(ClientHttpResponse upstream, MediaType contentType, Duration freshness, long deadline,
+                         ImageCache.Entry revalidated) {
+    }
+
+    /**
+     * Writes to the cache file and to the client, flushing the client after every chunk. Once a write to the client fails, e.g. because it went away,
+     * only the file is written, so the requests waiting for it still get the whole image. Closing closes only
+     * the file; the client's stream belongs to the response.
+     */
+    private static final class TeeOutputStream extends OutputStream {
+        private final OutputStream file;
+        private OutputStream client;
 
-            ResponseEntity<byte[]> response = restTemplate.exchange(
-                    new URI(url), HttpMethod.GET, entity, byte[].class);
+        TeeOutputStream(OutputStream file, OutputStream client) {
+            this.file = file;
+            this.client = client;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            file.write(buffer, offset, length);
+            if (client != null) {
+                try {
+                    // passed on as it arrives rather than once the response buffer fills
+                    client.write(buffer, offset, length);
+                    client.flush();
+                } catch (IOException e) {
+                    logger.debug("Client went away while an image was streamed to it: {}", e.getMessage());
+                    client = null;
+                }
+            }
+        }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .body(response.getBody());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        @Override
+        public void close() throws IOException {
+            file.close();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scales images down to thumbnails with javax.imageio. Decoding and scaling are CPU-bound, so they run on
+ * a dedicated, size-limited pool with a bounded queue; when it is saturated, callers are rejected with 503
+ * instead of piling up on servlet threads.
+ * <p>
+ * Large images are subsampled while decoding, so memory stays proportional to the thumbnail and not
+ * to the original, and are then scaled in halving steps, which keeps bilinear filtering sharp.
+ */
+@Component
+public class ImageThumbnailer {
+    private static final Logger logger = LoggerFactory.getLogger(ImageThumbnailer.class);
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Timer thumbnailTimer;
+    private final Counter rejectedCounter;
+
+    public ImageThumbnailer(MeterRegistry meterRegistry,
+                            @Value("${spring.app.imageThumbnailThreads}") int threads,
+                            @Value("${spring.app.imageThumbnailQueueCapacity}") int queueCapacity,
+                            @Value("${spring.app.imageThumbnailTimeoutMs}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.thumbnailTimer = Timer.builder("image.thumbnail").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("image.thumbnail.rejected").register(meterRegistry);
+        Gauge.builder("image.thumbnail.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Writes a thumbnail of an image whose shorter side is the given size, which is what an avatar cropped
+     * to a square of that size needs. Images with transparency are written as PNG, all others as JPEG.
+     * @param source The image file.
+     * @param size Length of the shorter side in pixels.
+     * @param output Stream to write the thumbnail to; not closed.
+     * @return Content type of the thumbnail, or null if nothing was written because the image cannot be
+     *         decoded or is not larger than the thumbnail.
+     * @throws ResponseStatusException with 503 if the pool is saturated or the thumbnail takes too long.
+     */
+    public MediaType writeThumbnail(Path source, int size, OutputStream output) {
+        Future<MediaType> future;
+        try {
+            future = executor.submit(() -> thumbnailTimer.recordCallable(() -> scale(source, size, output)));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            logger.warn("Thumbnail pool saturated, rejecting request");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while creating thumbnail", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Thumbnail creation failed", e.getCause());
+        }
+    }
+
+    private static MediaType scale(Path source, int size, OutputStream output) throws IOException {
+        BufferedImage image;
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int shorterSide = Math.min(reader.getWidth(0), reader.getHeight(0));
+                if (shorterSide <= size) {
+                    return null;
+                }
+
+                // decode at no less than twice the thumbnail size, so the halving steps still have pixels to average
+                int subsampling = Math.max(1, shorterSide / (size * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            // unsupported variants of a format (e.g. CMYK JPEG) surface here; the original is served instead
+            logger.debug("Could not decode image {} for a thumbnail: {}", source, e.toString());
+            return null;
+        }
+
+        boolean alpha = image.getColorModel().hasAlpha();
+        BufferedImage thumbnail = resize(image, size, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(alpha ? "png" : "jpeg").next();
+        try (ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!alpha) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(thumbnail, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return alpha ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int size, int type) {
+        double scale = (double) size / Math.min(image.getWidth(), image.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+}
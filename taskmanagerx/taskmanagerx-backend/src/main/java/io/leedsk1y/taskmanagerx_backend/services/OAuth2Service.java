@@ -1,5 +1,6 @@
 package io.leedsk1y.taskmanagerx_backend.services;
 
+import io.leedsk1y.taskmanagerx_backend.dto.AuthTokensDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.UserDetailedResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.models.EAuthProvider;
 import io.leedsk1y.taskmanagerx_backend.models.ERole;
@@ -8,6 +9,8 @@ import io.leedsk1y.taskmanagerx_backend.models.User;
 import io.leedsk1y.taskmanagerx_backend.repositories.RoleRepository;
 import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
 import io.leedsk1y.taskmanagerx_backend.security.jwt.JwtUtils;
+import io.leedsk1y.taskmanagerx_backend.security.services.PrincipalCache;
+import io.leedsk1y.taskmanagerx_backend.security.services.RefreshTokenService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -21,19 +24,28 @@ public class OAuth2Service {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final JwtUtils jwtUtils;
+    private final PrincipalCache principalCache;
+    private final RefreshTokenService refreshTokenService;
+    private final AvatarPrefetcher avatarPrefetcher;
 
-    public OAuth2Service(UserRepository userRepository, RoleRepository roleRepository, JwtUtils jwtUtils) {
+    public OAuth2Service(UserRepository userRepository, RoleRepository roleRepository, JwtUtils jwtUtils,
+                         PrincipalCache principalCache, RefreshTokenService refreshTokenService,
+                         AvatarPrefetcher avatarPrefetcher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.jwtUtils = jwtUtils;
+        this.principalCache = principalCache;
+        this.refreshTokenService = refreshTokenService;
+        this.avatarPrefetcher = avatarPrefetcher;
     }
 
     /**
-     * Handles OAuth2 authentication by retrieving or creating a user, then generating a JWT token.
+     * Handles OAuth2 authentication by retrieving or creating a user, then generating a JWT token and a refresh token.
+     * The user's profile image is prefetched in the background, so the first page does not wait for it.
      * @param auth2AuthenticationToken The authentication token from the OAuth2 provider.
-     * @return LoginResponseDTO containing the JWT token and user details.
+     * @return AuthTokensDTO containing the JWT and refresh tokens.
      */
-    public String handleOAuth2Authentication(OAuth2AuthenticationToken auth2AuthenticationToken) {
+    public AuthTokensDTO handleOAuth2Authentication(OAuth2AuthenticationToken auth2AuthenticationToken) {
         OAuth2User oAuth2User = auth2AuthenticationToken.getPrincipal();
         String email = Optional.ofNullable((String) oAuth2User.getAttribute("email"))
                 .orElseThrow(() -> new RuntimeException("OAuth2 authentication failed: Email not found"));
@@ -45,9 +57,13 @@ public class OAuth2Service {
         if (profileImageUrl != null && !profileImageUrl.equals(user.getProfileImage())) {
             user.setProfileImage(profileImageUrl);
             userRepository.save(user);
+            principalCache.evict(user);
         }
 
-        return jwtUtils.generateTokenFromUsername(user.getUsername());
+        // a changed picture has a new URL, so it is fetched here as well; an unchanged one that is still cached is not
+        avatarPrefetcher.prefetch(user.getProfileImage());
+
+        return new AuthTokensDTO(jwtUtils.generateTokenFromUser(user), refreshTokenService.issue(user));
     }
 
     /**
@@ -0,0 +1,197 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskBatchRequestDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskBatchResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskBatchResponseDTO.ItemResult;
+import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
+import io.leedsk1y.taskmanagerx_backend.models.Task;
+import io.leedsk1y.taskmanagerx_backend.models.User;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
+import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Applies many task changes of one user in a single transaction. The affected tasks are loaded with one
+ * owner-scoped query, and the resulting INSERTs and UPDATEs are sent as JDBC batches on flush
+ * (see hibernate.jdbc.batch_size). Task IDs are generated in the application, so inserts can be batched.
+ */
+@Service
+public class TaskBatchService {
+    private static final String NOT_FOUND = "Task not found or access denied";
+
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final TaskChangeTracker taskChangeTracker;
+
+    @Value("${spring.app.taskBatchMaxSize}")
+    private int maxBatchSize;
+
+    public TaskBatchService(TaskRepository taskRepository, UserRepository userRepository,
+                            TaskChangeTracker taskChangeTracker) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.taskChangeTracker = taskChangeTracker;
+    }
+
+    /**
+     * Applies creates, updates, status changes and deletes, in that order. Invalid items are reported
+     * in the result and skipped, the remaining items are still applied.
+     * @param userId Owner of the tasks.
+     * @param request Batch of changes.
+     * @return Per-item results.
+     * @throws ResponseStatusException with 400 if the batch exceeds the configured maximum size.
+     */
+    @Transactional
+    public TaskBatchResponseDTO apply(UUID userId, TaskBatchRequestDTO request) {
+        int size = request.getCreates().size() + request.getUpdates().size()
+                + request.getStatusChanges().size() + request.getDeletes().size();
+        if (size > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch exceeds " + maxBatchSize + " items");
+        }
+
+        Map<UUID, Task> ownedTasks = loadOwnedTasks(userId, request);
+
+        TaskBatchResponseDTO response = new TaskBatchResponseDTO(
+                applyCreates(userId, request.getCreates()),
+                applyUpdates(request.getUpdates(), ownedTasks),
+                applyStatusChanges(request.getStatusChanges(), ownedTasks),
+                applyDeletes(userId, request.getDeletes(), ownedTasks));
+
+        // same transaction, so the new counter becomes visible together with the changes
+        taskChangeTracker.recordChange(userId, Stream.of(response.getCreates(), response.getUpdates(),
+                        response.getStatusChanges())
+                .flatMap(List::stream)
+                .filter(ItemResult::isSuccess)
+                .map(ItemResult::getId)
+                .collect(Collectors.toSet()));
+        return response;
+    }
+
+    private Map<UUID, Task> loadOwnedTasks(UUID userId, TaskBatchRequestDTO request) {
+        Set<UUID> ids = new HashSet<>(request.getDeletes());
+        request.getUpdates().forEach(update -> ids.add(update.getId()));
+        request.getStatusChanges().forEach(change -> ids.add(change.getId()));
+        ids.remove(null);
+
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        return taskRepository.findAll(TaskSpecifications.idIn(ids).and(TaskSpecifications.ownedBy(userId)))
+                .stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+    }
+
+    private List<ItemResult> applyCreates(UUID userId, List<TaskBatchRequestDTO.Create> creates) {
+        List<ItemResult> results = new ArrayList<>(creates.size());
+        List<Task> tasks = new ArrayList<>(creates.size());
+        User owner = userRepository.getReferenceById(userId);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (TaskBatchRequestDTO.Create create : creates) {
+            if (create.getTitle() == null || create.getTitle().isBlank()) {
+                tasks.add(null);
+                continue;
+            }
+
+            Task task = new Task();
+            task.setTitle(create.getTitle());
+            task.setDescription(create.getDescription());
+            task.setDueDate(create.getDueDate());
+            task.setStatus(ETaskStatus.PENDING);
+            task.setCreatedAt(now);
+            task.setUser(owner);
+            tasks.add(task);
+        }
+
+        taskRepository.saveAll(tasks.stream().filter(task -> task != null).toList());
+
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            results.add(task == null ? ItemResult.failed(i, null, "Title is required") : ItemResult.ok(i, task.getId()));
+        }
+        return results;
+    }
+
+    private List<ItemResult> applyUpdates(List<TaskBatchRequestDTO.Update> updates, Map<UUID, Task> ownedTasks) {
+        List<ItemResult> results = new ArrayList<>(updates.size());
+
+        for (int i = 0; i < updates.size(); i++) {
+            TaskBatchRequestDTO.Update update = updates.get(i);
+            Task task = ownedTasks.get(update.getId());
+
+            if (task == null) {
+                results.add(ItemResult.failed(i, update.getId(), NOT_FOUND));
+            } else if (update.getTitle() == null || update.getTitle().isBlank() || update.getStatus() == null) {
+                results.add(ItemResult.failed(i, update.getId(), "Title and status are required"));
+            } else {
+                // managed entity, flushed as part of the UPDATE batch
+                task.setTitle(update.getTitle());
+                task.setDescription(update.getDescription());
+                task.setStatus(update.getStatus());
+                task.setDueDate(update.getDueDate());
+                results.add(ItemResult.ok(i, task.getId()));
+            }
+        }
+        return results;
+    }
+
+    private List<ItemResult> applyStatusChanges(List<TaskBatchRequestDTO.StatusChange> changes, Map<UUID, Task> ownedTasks) {
+        List<ItemResult> results = new ArrayList<>(changes.size());
+
+        for (int i = 0; i < changes.size(); i++) {
+            TaskBatchRequestDTO.StatusChange change = changes.get(i);
+            Task task = ownedTasks.get(change.getId());
+
+            if (task == null) {
+                results.add(ItemResult.failed(i, change.getId(), NOT_FOUND));
+            } else if (change.getStatus() == null) {
+                results.add(ItemResult.failed(i, change.getId(), "Status is required"));
+            } else {
+                task.setStatus(change.getStatus());
+                results.add(ItemResult.ok(i, task.getId()));
+            }
+        }
+        return results;
+    }
+
+    private List<ItemResult> applyDeletes(UUID userId, List<UUID> ids, Map<UUID, Task> ownedTasks) {
+        List<ItemResult> results = new ArrayList<>(ids.size());
+        Map<UUID, Task> toDelete = new LinkedHashMap<>();
+
+        for (int i = 0; i < ids.size(); i++) {
+            Task task = ownedTasks.get(ids.get(i));
+
+            if (task == null) {
+                results.add(ItemResult.failed(i, ids.get(i), NOT_FOUND));
+            } else {
+                toDelete.put(task.getId(), task);
+                results.add(ItemResult.ok(i, task.getId()));
+            }
+        }
+
+        // one DELETE for all owned tasks
+        if (!toDelete.isEmpty()) {
+            taskRepository.deleteAllInBatch(toDelete.values());
+            taskChangeTracker.recordRemoval(userId, toDelete.keySet());
+        }
+        return results;
+    }
+}
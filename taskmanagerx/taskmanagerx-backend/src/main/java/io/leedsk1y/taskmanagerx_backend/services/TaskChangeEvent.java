@@ -0,0 +1,16 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published by TaskChangeTracker whenever tasks of a user change. Listeners should use
+ * {@code @TransactionalEventListener(fallbackExecution = true)}, so they only see committed changes.
+ * @param userId Owner whose task list changed.
+ * @param version The owner's task counter as of this change (see TaskChangeTracker). Consecutive changes of
+ *                a user have consecutive values, but events are not guaranteed to arrive in that order.
+ * @param changedTaskIds Tasks that were created or updated, or newly assigned to the user.
+ * @param removedTaskIds Tasks that were deleted, or reassigned to another user.
+ */
+public record TaskChangeEvent(UUID userId, long version, Set<UUID> changedTaskIds, Set<UUID> removedTaskIds) {
+}
@@ -0,0 +1,106 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.models.TaskTombstone;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskTombstoneRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps a per-user counter that changes whenever any of the user's tasks is created, updated or deleted,
+ * and leaves tombstones for tasks that disappear from a user's list, for delta sync.
+ * Changed tasks and tombstones are stamped with the counter value their change produced. Incrementing the
+ * counter locks the user's row until commit, so a user's changes commit in counter order: once a reader sees
+ * value N, every change stamped N or lower is visible.
+ * Both live in the database, so they are shared by all instances and survive restarts.
+ * Every change is also published as a TaskChangeEvent for in-process listeners, carrying the counter value
+ * the change produced.
+ * Writers record a change inside the transaction that makes it, so the change and the counter commit together:
+ * a reader can never see the new counter with the old tasks, nor changed tasks that the counter missed.
+ */
+@Service
+public class TaskChangeTracker {
+    private final UserRepository userRepository;
+    private final TaskRepository taskRepository;
+    private final TaskTombstoneRepository taskTombstoneRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TaskChangeTracker(UserRepository userRepository, TaskRepository taskRepository,
+                             TaskTombstoneRepository taskTombstoneRepository, ApplicationEventPublisher eventPublisher) {
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.taskTombstoneRepository = taskTombstoneRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Records that tasks of the given user were created or updated, or assigned to the user.
+     * @param userId Owner UUID.
+     * @param taskIds Changed task UUIDs; nothing is recorded if empty.
+     * @return The counter value produced by this change, or the current one if nothing was recorded.
+     */
+    @Transactional
+    public long recordChange(UUID userId, Collection<UUID> taskIds) {
+        if (taskIds.isEmpty()) {
+            return getVersion(userId);
+        }
+
+        long version = incrementVersion(userId);
+        taskRepository.updateChangeSeq(taskIds, version);
+        eventPublisher.publishEvent(new TaskChangeEvent(userId, version, Set.copyOf(taskIds), Set.of()));
+        return version;
+    }
+
+    /**
+     * Records that tasks were removed from a user's list, either deleted or reassigned to another user.
+     * Must run in the transaction that removes them, so that a tombstone exists exactly when the task is gone.
+     * @param userId The (former) owner's UUID.
+     * @param taskIds Removed task UUIDs.
+     * @return The counter value produced by this change, or the current one if nothing was recorded.
+     */
+    @Transactional
+    public long recordRemoval(UUID userId, Collection<UUID> taskIds) {
+        if (taskIds.isEmpty()) {
+            return getVersion(userId);
+        }
+
+        long version = incrementVersion(userId);
+        LocalDateTime now = LocalDateTime.now();
+        taskTombstoneRepository.saveAll(taskIds.stream().map(taskId -> {
+            TaskTombstone tombstone = new TaskTombstone();
+            tombstone.setTaskId(taskId);
+            tombstone.setUserId(userId);
+            tombstone.setDeletedAt(now);
+            tombstone.setChangeSeq(version);
+            return tombstone;
+        }).toList());
+
+        eventPublisher.publishEvent(new TaskChangeEvent(userId, version, Set.of(), Set.copyOf(taskIds)));
+        return version;
+    }
+
+    /**
+     * Retrieves the current task counter of a user.
+     * @param userId Owner UUID.
+     * @return The counter, or 0 if the user does not exist.
+     */
+    public long getVersion(UUID userId) {
+        return userRepository.findTasksVersionById(userId).orElse(0L);
+    }
+
+    /**
+     * Increments the counter and reads it back in the same transaction; the row stays locked by the
+     * update until commit, so the value read is the one this increment produced.
+     */
+    private long incrementVersion(UUID userId) {
+        userRepository.incrementTasksVersion(userId);
+        return getVersion(userId);
+    }
+}
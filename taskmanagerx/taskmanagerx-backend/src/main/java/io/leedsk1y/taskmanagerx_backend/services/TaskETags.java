@@ -0,0 +1,62 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import java.util.UUID;
+
+/**
+ * Builds and parses the strong ETags of the task endpoints: {@code "<userId>-<tasksVersion>"} for a user's
+ * task collections and {@code "<taskId>-<version>"} for a single task.
+ */
+public final class TaskETags {
+    private TaskETags() {
+    }
+
+    /**
+     * @param userId Owner UUID.
+     * @param tasksVersion The owner's task counter.
+     * @return ETag of the owner's task collections.
+     */
+    public static String forTasks(UUID userId, long tasksVersion) {
+        return "\"" + userId + "-" + tasksVersion + "\"";
+    }
+
+    /**
+     * @param taskId Task UUID.
+     * @param version The task's version.
+     * @return ETag of the task.
+     */
+    public static String forTask(UUID taskId, long version) {
+        return "\"" + taskId + "-" + version + "\"";
+    }
+
+    /**
+     * Extracts the task version an If-Match header refers to.
+     * @param taskId Task UUID.
+     * @param ifMatch Value of the If-Match header, may be null.
+     * @return The expected version, null if the header is absent or "*",
+     *         or -1 if it names another resource and therefore can never match.
+     */
+    public static Long parseTaskVersion(UUID taskId, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            return -1L; // If-Match only ever matches strong ETags
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+
+        String prefix = taskId + "-";
+        if (!value.startsWith(prefix)) {
+            return -1L;
+        }
+
+        try {
+            return Long.parseLong(value.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed task changes out to Server-Sent Event connections of the affected user.
+ * An idle connection is a parked async request plus a small bounded buffer, and holds no thread.
+ * Publishers only enqueue; a small sender pool writes to the sockets, one drain task per connection at a time.
+ * A connection whose buffer overflows is a slow consumer and is closed; the client reconnects and resyncs.
+ * Heartbeat comments keep proxies from closing idle connections and reveal dead ones.
+ * Connections are limited in total and per user, and a user's streams are ended when their tokens are revoked.
+ */
+@Component
+public class TaskEventHub {
+    private static final Logger logger = LoggerFactory.getLogger(TaskEventHub.class);
+
+    private final Map<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Map<UUID, Integer> userConnectionCounts = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor sender;
+    private final Counter evictedCounter;
+
+    @Value("${spring.app.taskEventsMaxConnections}")
+    private int maxConnections;
+
+    @Value("${spring.app.taskEventsMaxConnectionsPerUser}")
+    private int maxConnectionsPerUser;
+
+    @Value("${spring.app.taskEventsBufferSize}")
+    private int bufferSize;
+
+    @Value("${spring.app.taskEventsTimeoutMs}")
+    private long timeoutMs;
+
+    public TaskEventHub(@Value("${spring.app.taskEventsSenderThreads}") int senderThreads, MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        // each connection has at most one queued drain task, so the queue is bounded by the connection limit
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "task-events-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.evictedCounter = Counter.builder("tasks.events.evicted")
+                .register(meterRegistry);
+        Gauge.builder("tasks.events.connections", connectionCount, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens an event stream for a user. The stream ends about spring.app.taskEventsTimeoutMs later (at the next
+     * heartbeat), so that it does not outlive the access token it was opened with; EventSource reconnects on its own.
+     * The first event, "ready", carries a sync token taken before the stream was opened, from which the client can
+     * catch up on changes made while it was not connected.
+     * @param userId User UUID.
+     * @param syncToken Sync token for the user's current task counter.
+     * @return Emitter to return from the controller.
+     * @throws ResponseStatusException with 429 if the user has too many streams open, or with 503 if the
+     *         connection limit is reached.
+     */
+    public SseEmitter subscribe(UUID userId, String syncToken) {
+        userConnectionCounts.compute(userId, (id, count) -> {
+            if (count != null && count >= maxConnectionsPerUser) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many event streams");
+            }
+            return count == null ? 1 : count + 1;
+        });
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            release(userId);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event streams, please try again later");
+        }
+
+        // no container timeout: heartbeat() ends expired streams gracefully instead of with a timeout error
+        SseEmitter emitter = new SseEmitter(0L);
+        try {
+            // sent before the emitter is handed to Spring, so it is written (and the headers committed)
+            // on the request thread; sending from the pool at that point would race the response's filters
+            emitter.send(SseEmitter.event().name("ready").data(Map.of("syncToken", syncToken),
+                    MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            release(userId);
+            throw new UncheckedIOException(e);
+        }
+
+        Subscription subscription = new Subscription(userId, emitter, bufferSize,
+                System.currentTimeMillis() + timeoutMs);
+        emitter.onCompletion(subscription::ended);
+        emitter.onError(error -> subscription.ended());
+
+        subscriptions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        return emitter;
+    }
+
+    /**
+     * Ends all event streams of a user, e.g. after their tokens have been revoked. Clients that are still
+     * signed in reconnect with a fresh access token.
+     * @param userId User UUID.
+     */
+    public void closeUser(UUID userId) {
+        Set<Subscription> userSubscriptions = subscriptions.get(userId);
+        if (userSubscriptions != null) {
+            userSubscriptions.forEach(Subscription::evict);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        Set<Subscription> userSubscriptions = subscriptions.get(event.userId());
+        if (userSubscriptions == null) {
+            return;
+        }
+
+        // built once and shared, the built parts are only read when sending
+        Set<ResponseBodyEmitter.DataWithMediaType> message = SseEmitter.event()
+                .name("tasks")
+                .data(Map.of("changed", event.changedTaskIds(), "removed", event.removedTaskIds()),
+                        MediaType.APPLICATION_JSON)
+                .build();
+        userSubscriptions.forEach(subscription -> subscription.enqueue(message));
+    }
+
+    /**
+     * Sends a heartbeat comment to every stream and ends the streams that have expired.
+     */
+    @Scheduled(fixedDelayString = "${spring.app.taskEventsHeartbeatMs}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(subscription -> {
+            if (subscription.expiresAt <= now) {
+                subscription.evict();
+            } else {
+                subscription.enqueue(heartbeat);
+            }
+        }));
+    }
+
+    private void release(UUID userId) {
+        connectionCount.decrementAndGet();
+        userConnectionCounts.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(Subscription::evict));
+        sender.shutdown();
+    }
+
+    private final class Subscription {
+        private final UUID userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> buffer;
+        private final long expiresAt;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean evicted;
+
+        Subscription(UUID userId, SseEmitter emitter, int bufferSize, long expiresAt) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.expiresAt = expiresAt;
+        }
+
+        void enqueue(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (evicted) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                evictedCounter.increment();
+                logger.debug("Closing slow task event stream of user {}", userId);
+                evict();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        /**
+         * Stops accepting events; the emitter is completed by the sender, never by the publishing thread,
+         * which could otherwise block behind a write to a stalled socket.
+         */
+        void evict() {
+            evicted = true;
+            buffer.clear();
+            close();
+            scheduleDrain();
+        }
+
+        /**
+         * Called by the container once the stream has completed, timed out or failed.
+         */
+        void ended() {
+            evicted = true;
+            completed.set(true);
+            buffer.clear();
+            close();
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(userId);
+                subscriptions.computeIfPresent(userId, (id, userSubscriptions) -> {
+                    userSubscriptions.remove(this);
+                    return userSubscriptions.isEmpty() ? null : userSubscriptions;
+                });
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false); // rejected during shutdown
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                while (!evicted && (event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+                if (evicted && completed.compareAndSet(false, true)) {
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                // client went away; a write blocked on a stalled socket ends with the connector's write timeout
+                evicted = true;
+                close();
+                if (completed.compareAndSet(false, true)) {
+                    emitter.completeWithError(e);
+                }
+            } finally {
+                draining.set(false);
+                // an eviction or event that arrived while this drain was running is picked up here
+                if (evicted ? !completed.get() : !buffer.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+    }
+}
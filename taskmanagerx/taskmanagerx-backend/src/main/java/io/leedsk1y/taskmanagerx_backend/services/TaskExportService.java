@@ -0,0 +1,174 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.UserBasicDTO;
+import io.leedsk1y.taskmanagerx_backend.models.Task;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Streams tasks to the client as NDJSON or CSV. Rows are read from a database cursor and written one by one,
+ * so memory use does not depend on the number of exported tasks and the first bytes go out right away.
+ */
+@Service
+public class TaskExportService {
+    private static final Sort EXPORT_ORDER = Sort.by("createdAt", "id");
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.app.taskExportFetchSize}")
+    private int fetchSize;
+
+    public TaskExportService(TaskRepository taskRepository, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper) {
+        this.taskRepository = taskRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Creates the response body that streams all matching tasks. The query runs when the body is written,
+     * on the async request thread, inside its own read-only transaction.
+     * @param filter Conditions the exported tasks must match.
+     * @param includeUser Whether to include the owner of each task.
+     * @param format Output format.
+     * @return Body that writes the export to the response.
+     */
+    public StreamingResponseBody export(Specification<Task> filter, boolean includeUser, Format format) {
+        return outputStream -> transactionTemplate.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+
+            try (Stream<TaskResponseDTO> tasks = taskRepository.streamTaskResponses(filter, EXPORT_ORDER, fetchSize, includeUser)) {
+                if (format == Format.CSV) {
+                    writeCsvHeader(writer, includeUser);
+                }
+
+                int rows = 0;
+                Iterator<TaskResponseDTO> iterator = tasks.iterator();
+                while (iterator.hasNext()) {
+                    TaskResponseDTO task = iterator.next();
+                    if (format == Format.CSV) {
+                        writeCsvRow(writer, task, includeUser);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(task));
+                        writer.write('\n');
+                    }
+
+                    if (++rows % FLUSH_EVERY_ROWS == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void writeCsvHeader(Writer writer, boolean includeUser) throws IOException {
+        writer.write("id,title,description,status,dueDate,createdAt,userId");
+        if (includeUser) {
+            writer.write(",userName,userEmail");
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvRow(Writer writer, TaskResponseDTO task, boolean includeUser) throws IOException {
+        writer.write(String.valueOf(task.getId()));
+        writeCsvField(writer, task.getTitle());
+        writeCsvField(writer, task.getDescription());
+        writeCsvField(writer, task.getStatus());
+        writeCsvField(writer, task.getDueDate());
+        writeCsvField(writer, task.getCreatedAt());
+        writeCsvField(writer, task.getUserId());
+
+        if (includeUser) {
+            UserBasicDTO user = task.getUser();
+            writeCsvField(writer, user.getName());
+            writeCsvField(writer, user.getEmail());
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvField(Writer writer, Object value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+
+        String text = value.toString();
+
+        // keep spreadsheet applications from evaluating user input as a formula
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getFileName() {
+            return "tasks." + extension;
+        }
+
+        /**
+         * Parses the format request parameter.
+         * @param value "ndjson" or "csv", case-insensitive.
+         * @return The matching format.
+         * @throws ResponseStatusException with 400 if the format is not supported.
+         */
+        public static Format from(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + value);
+            }
+        }
+    }
+}
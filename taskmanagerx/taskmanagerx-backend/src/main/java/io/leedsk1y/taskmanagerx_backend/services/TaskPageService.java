@@ -0,0 +1,147 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskPageResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.models.Task;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSortKey;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyset (seek) pagination over tasks. Each page is a single indexed range scan that starts right after the
+ * last row of the previous page, so the cost of a page does not grow with how far the client has paged.
+ * Rows are ordered by the sort key and then by ID; tasks without a value for a nullable key come last.
+ */
+@Service
+public class TaskPageService {
+    private static final String NULL_MARKER = "~";
+    private static final String VALUE_MARKER = "=";
+
+    private final TaskRepository taskRepository;
+
+    @Value("${spring.app.taskPageMaxSize}")
+    private int maxPageSize;
+
+    public TaskPageService(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Fetches one page of tasks.
+     * @param filter Conditions every returned task must match.
+     * @param key Sort key used as the seek key.
+     * @param direction Sorting direction.
+     * @param cursor Continuation token from the previous page, or null for the first page.
+     * @param limit Requested page size, clamped to the configured maximum.
+     * @param includeUser Whether to include the owner in each task.
+     * @return The page of tasks with the token for the next page.
+     * @throws ResponseStatusException with 400 if the cursor is malformed or belongs to a different ordering.
+     */
+    public TaskPageResponseDTO findPage(Specification<Task> filter, TaskSortKey key, Sort.Direction direction,
+                                        String cursor, int limit, boolean includeUser) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        Cursor position = cursor == null || cursor.isEmpty() ? null : Cursor.decode(cursor, key, direction);
+
+        // one extra row tells whether another page follows
+        List<TaskResponseDTO> tasks = fetch(filter, key, direction, position, pageSize + 1, includeUser);
+
+        String nextCursor = null;
+        if (tasks.size() > pageSize) {
+            tasks = tasks.subList(0, pageSize);
+            TaskResponseDTO last = tasks.get(pageSize - 1);
+            nextCursor = new Cursor(key, direction, key.format(last), last.getId()).encode();
+        }
+
+        return new TaskPageResponseDTO(tasks, nextCursor);
+    }
+
+    private List<TaskResponseDTO> fetch(Specification<Task> filter, TaskSortKey key, Sort.Direction direction,
+                                        Cursor position, int count, boolean includeUser) {
+        Sort byId = Sort.by(direction, "id");
+
+        if (!key.isNullable()) {
+            Specification<Task> spec = position == null ? filter
+                    : filter.and(TaskSpecifications.seekAfter(key, direction, key.parse(position.value()), position.id()));
+            return query(spec, Sort.by(direction, key.getPath()).and(byId), count, includeUser);
+        }
+
+        // nullable keys are read in two ranges: rows with a value, then rows without one ordered by ID
+        List<TaskResponseDTO> tasks = new ArrayList<>();
+
+        if (position == null || position.value() != null) {
+            Specification<Task> spec = filter.and(TaskSpecifications.keyIsNotNull(key));
+            if (position != null) {
+                spec = spec.and(TaskSpecifications.seekAfter(key, direction, key.parse(position.value()), position.id()));
+            }
+            tasks.addAll(query(spec, Sort.by(direction, key.getPath()).and(byId), count, includeUser));
+
+            if (tasks.size() == count) {
+                return tasks;
+            }
+        }
+
+        Specification<Task> spec = filter.and(TaskSpecifications.keyIsNull(key));
+        if (position != null && position.value() == null) {
+            spec = spec.and(TaskSpecifications.idAfter(direction, position.id()));
+        }
+        tasks.addAll(query(spec, byId, count - tasks.size(), includeUser));
+
+        return tasks;
+    }
+
+    private List<TaskResponseDTO> query(Specification<Task> spec, Sort sort, int count, boolean includeUser) {
+        return taskRepository.findTaskResponses(spec, sort, count, includeUser);
+    }
+
+    /**
+     * Position of the last row of a page. The sort key and direction are part of the token, so that a cursor
+     * cannot be replayed against a different ordering.
+     */
+    private record Cursor(TaskSortKey key, Sort.Direction direction, String value, UUID id) {
+
+        String encode() {
+            String raw = key.name() + "|" + direction.name() + "|" + id + "|"
+                    + (value == null ? NULL_MARKER : VALUE_MARKER + value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token, TaskSortKey expectedKey, Sort.Direction expectedDirection) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", 4);
+
+                if (parts.length != 4
+                        || !expectedKey.name().equals(parts[0])
+                        || !expectedDirection.name().equals(parts[1])) {
+                    throw new IllegalArgumentException("Cursor does not match the requested ordering");
+                }
+
+                String value;
+                if (NULL_MARKER.equals(parts[3]) && expectedKey.isNullable()) {
+                    value = null;
+                } else if (parts[3].startsWith(VALUE_MARKER)) {
+                    value = parts[3].substring(VALUE_MARKER.length());
+                    expectedKey.parse(value);
+                } else {
+                    throw new IllegalArgumentException("Malformed cursor value");
+                }
+
+                return new Cursor(expectedKey, expectedDirection, value, UUID.fromString(parts[2]));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+    }
+}
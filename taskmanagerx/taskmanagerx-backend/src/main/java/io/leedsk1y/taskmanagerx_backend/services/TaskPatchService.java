@@ -0,0 +1,134 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
+import io.leedsk1y.taskmanagerx_backend.models.Task;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Applies JSON Merge Patch documents (RFC 7396) to tasks. Members that are present are written,
+ * explicit nulls clear optional fields, and absent members are left alone. Task has @DynamicUpdate,
+ * so the resulting UPDATE only contains the changed columns plus the version check, and a patch that
+ * changes nothing writes nothing.
+ */
+@Service
+public class TaskPatchService {
+    private final TaskRepository taskRepository;
+    private final TaskChangeTracker taskChangeTracker;
+    private final ObjectMapper objectMapper;
+
+    public TaskPatchService(TaskRepository taskRepository, TaskChangeTracker taskChangeTracker,
+                            ObjectMapper objectMapper) {
+        this.taskRepository = taskRepository;
+        this.taskChangeTracker = taskChangeTracker;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Patches a task.
+     * @param taskId Task UUID.
+     * @param ownerId Owner the task must belong to, or null to patch any task.
+     * @param patch Merge patch document.
+     * @param expectedVersion Version the client based its patch on, or null to skip the check.
+     * @param includeUser Whether to include the owner in the result.
+     * @return The patched task.
+     * @throws ResponseStatusException with 400 for an invalid patch, 412 if the task no longer has the expected
+     *         version, or 409 if it was changed concurrently while the patch was applied.
+     */
+    @Transactional
+    public TaskResponseDTO patch(UUID taskId, UUID ownerId, JsonNode patch, Long expectedVersion, boolean includeUser) {
+        if (patch == null || !patch.isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Patch must be a JSON object");
+        }
+
+        Task task = taskRepository.findOne(TaskSpecifications.hasId(taskId).and(TaskSpecifications.ownedBy(ownerId)))
+                .orElseThrow(() -> new RuntimeException(ownerId != null ? "Task not found or access denied" : "Task not found"));
+
+        if (expectedVersion != null && !expectedVersion.equals(task.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Task has been modified");
+        }
+
+        boolean changed = false;
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            changed |= apply(task, field.getKey(), field.getValue());
+        }
+
+        if (!changed) {
+            return new TaskResponseDTO(task, includeUser);
+        }
+
+        try {
+            // flush here, so that a concurrent change surfaces as a conflict and not at commit
+            taskRepository.saveAndFlush(task);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Task has been modified concurrently");
+        }
+
+        taskChangeTracker.recordChange(task.getUser().getId(), List.of(taskId));
+        return new TaskResponseDTO(task, includeUser);
+    }
+
+    private boolean apply(Task task, String field, JsonNode value) {
+        switch (field) {
+            case "title" -> {
+                if (!value.isTextual() || value.asText().isBlank()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Title is required");
+                }
+                return set(task.getTitle(), value.asText(), task::setTitle);
+            }
+            case "description" -> {
+                if (!value.isNull() && !value.isTextual()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Description must be a string");
+                }
+                return set(task.getDescription(), value.isNull() ? null : value.asText(), task::setDescription);
+            }
+            case "status" -> {
+                if (value.isNull()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Status is required");
+                }
+                return set(task.getStatus(), convert(value, ETaskStatus.class, "Invalid status"), task::setStatus);
+            }
+            case "dueDate" -> {
+                LocalDateTime dueDate = value.isNull() ? null : convert(value, LocalDateTime.class, "Invalid due date");
+                return set(task.getDueDate(), dueDate, task::setDueDate);
+            }
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field cannot be patched: " + field);
+        }
+    }
+
+    private <T> T convert(JsonNode value, Class<T> type, String error) {
+        try {
+            // same Jackson configuration as request bodies, so dates and enums parse the same way
+            return objectMapper.treeToValue(value, type);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+    }
+
+    private static <T> boolean set(T current, T value, Consumer<T> setter) {
+        if (Objects.equals(current, value)) {
+            return false;
+        }
+        setter.accept(value);
+        return true;
+    }
+}
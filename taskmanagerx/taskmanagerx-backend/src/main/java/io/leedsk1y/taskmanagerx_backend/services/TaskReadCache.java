@@ -0,0 +1,238 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the task lists of recently active users in memory as immutable snapshots, so that listing, filtering
+ * and sorting them does not query the tasks table. The cache is bounded by the total number of cached tasks.
+ * <p>
+ * Every snapshot carries the user's task counter (see TaskChangeTracker) up to which it is complete, and is
+ * only served while the counter has not moved past it. A committed TaskChangeEvent patches a snapshot in place
+ * (the changed rows are re-read by ID and removed ones dropped) only if it is the very next change after the
+ * snapshot's counter; otherwise a change in between was not seen here, such as a write by another instance or
+ * an event still to arrive, and the snapshot is dropped to be reloaded instead of serving stale tasks.
+ */
+@Component
+public class TaskReadCache {
+    private static final Comparator<UUID> UUID_ORDER = Comparator
+            // the database compares UUIDs as unsigned bytes, UUID.compareTo as signed longs
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private static final Map<String, Comparator<TaskResponseDTO>> COMPARATORS = Map.of(
+            "title", nullsFirst(TaskResponseDTO::getTitle),
+            "status", nullsFirst(task -> task.getStatus() == null ? null : task.getStatus().name()),
+            "dueDate", nullsFirst(TaskResponseDTO::getDueDate),
+            "createdAt", nullsFirst(TaskResponseDTO::getCreatedAt),
+            "id", Comparator.comparing(TaskResponseDTO::getId, UUID_ORDER));
+
+    private final TaskRepository taskRepository;
+    private final TaskChangeTracker taskChangeTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<UUID, Snapshot> snapshots;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public TaskReadCache(TaskRepository taskRepository, TaskChangeTracker taskChangeTracker,
+                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                         @Value("${spring.app.taskReadCacheMaxTasks}") long maxTasks,
+                         @Value("${spring.app.taskReadCacheIdleMs}") long idleMs) {
+        this.taskRepository = taskRepository;
+        this.taskChangeTracker = taskChangeTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // change events are handled after the writer's commit, where its transaction can no longer be used
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.snapshots = Caffeine.newBuilder()
+                .maximumWeight(maxTasks)
+                .weigher((UUID userId, Snapshot snapshot) -> snapshot.tasks().size() + 1)
+                .expireAfterAccess(Duration.ofMillis(idleMs))
+                .removalListener((UUID userId, Snapshot snapshot, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        Counter.builder("tasks.read.cache.evictions")
+                                .tag("cause", cause.name().toLowerCase(Locale.ROOT))
+                                .register(meterRegistry)
+                                .increment();
+                    }
+                })
+                .build();
+
+        this.hitCounter = Counter.builder("tasks.read.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("tasks.read.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("tasks.read.cache.users", snapshots, Cache::estimatedSize).register(meterRegistry);
+        Gauge.builder("tasks.read.cache.tasks", snapshots,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retrieves all tasks of a user.
+     * @param userId Owner UUID.
+     * @return Immutable list of the user's tasks.
+     */
+    public List<TaskResponseDTO> getTasks(UUID userId) {
+        long version = taskChangeTracker.getVersion(userId);
+
+        Snapshot cached = snapshots.getIfPresent(userId);
+        // the counter only grows, so a snapshot patched past the value read above is at least as fresh
+        if (cached != null && cached.version() >= version) {
+            hitCounter.increment();
+            return cached.tasks();
+        }
+
+        missCounter.increment();
+        // loading inside compute makes a concurrent patch or invalidation wait for the load, and not get lost
+        return snapshots.asMap().compute(userId, (id, existing) ->
+                existing != null && existing.version() >= version ? existing : load(id)).tasks();
+    }
+
+    /**
+     * Filters and sorts a user's tasks in memory, with the semantics of the equivalent database query.
+     * @param userId Owner UUID.
+     * @param status Task status, or null for any status.
+     * @param dueDateBefore Only tasks due before this date, or null.
+     * @param dueDateAfter Only tasks due after this date, or null.
+     * @param sort Sort on task properties (see TaskSorts), may be unsorted.
+     * @return Matching tasks.
+     */
+    public List<TaskResponseDTO> findTasks(UUID userId, ETaskStatus status, LocalDateTime dueDateBefore,
+                                           LocalDateTime dueDateAfter, Sort sort) {
+        Predicate<TaskResponseDTO> filter = task -> (status == null || status == task.getStatus())
+                && (dueDateBefore == null || task.getDueDate() != null && task.getDueDate().isBefore(dueDateBefore))
+                && (dueDateAfter == null || task.getDueDate() != null && task.getDueDate().isAfter(dueDateAfter));
+
+        Stream<TaskResponseDTO> tasks = getTasks(userId).stream().filter(filter);
+        if (sort.isSorted()) {
+            tasks = tasks.sorted(comparator(sort));
+        }
+        return tasks.toList();
+    }
+
+    /**
+     * Drops the snapshot of a user.
+     * @param userId User UUID.
+     */
+    public void invalidate(UUID userId) {
+        snapshots.invalidate(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        Snapshot current = snapshots.policy().getIfPresentQuietly(event.userId());
+        if (current == null) {
+            return;
+        }
+
+        // the rows are read before compute, which holds the entry's lock while it runs; as they are read after
+        // the change was committed, they are at least as new as the event, and a later change to one of them
+        // patches it again
+        Map<UUID, TaskResponseDTO> updates = current.version() == event.version() - 1
+                ? transactionTemplate.execute(status -> findChanged(event)) : null;
+
+        snapshots.asMap().computeIfPresent(event.userId(), (userId, snapshot) -> {
+            if (snapshot.version() >= event.version()) {
+                return snapshot; // loaded after the change was committed, so it already contains it
+            }
+            if (snapshot.version() != event.version() - 1 || updates == null) {
+                return null;
+            }
+            return patch(snapshot, event, updates);
+        });
+    }
+
+    private Snapshot load(UUID userId) {
+        return transactionTemplate.execute(status -> {
+            // the counter is read first: a write committed in between makes the snapshot look older than it is
+            // and only causes a reload, never a stale hit
+            long version = taskChangeTracker.getVersion(userId);
+            List<TaskResponseDTO> tasks = taskRepository.findTaskResponses(
+                    TaskSpecifications.ownedBy(userId), Sort.unsorted(), false);
+            return new Snapshot(version, List.copyOf(tasks));
+        });
+    }
+
+    private Map<UUID, TaskResponseDTO> findChanged(TaskChangeEvent event) {
+        if (event.changedTaskIds().isEmpty()) {
+            return Map.of();
+        }
+        return taskRepository.findTaskResponses(TaskSpecifications.idIn(event.changedTaskIds())
+                        .and(TaskSpecifications.ownedBy(event.userId())), Sort.unsorted(), false).stream()
+                .collect(Collectors.toMap(TaskResponseDTO::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private Snapshot patch(Snapshot snapshot, TaskChangeEvent event, Map<UUID, TaskResponseDTO> changed) {
+        Map<UUID, TaskResponseDTO> updates = new LinkedHashMap<>(changed);
+        Set<UUID> affected = new HashSet<>(event.changedTaskIds());
+        affected.addAll(event.removedTaskIds());
+
+        // changed tasks keep their position, new ones are appended; a changed task that is gone or was
+        // reassigned in the meantime is not among the updates and drops out
+        List<TaskResponseDTO> tasks = new ArrayList<>(snapshot.tasks().size() + updates.size());
+        for (TaskResponseDTO task : snapshot.tasks()) {
+            if (!affected.contains(task.getId())) {
+                tasks.add(task);
+            } else if (updates.containsKey(task.getId())) {
+                tasks.add(updates.remove(task.getId()));
+            }
+        }
+        tasks.addAll(updates.values());
+
+        return new Snapshot(event.version(), List.copyOf(tasks));
+    }
+
+    private static Comparator<TaskResponseDTO> comparator(Sort sort) {
+        Comparator<TaskResponseDTO> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<TaskResponseDTO> next = COMPARATORS.get(order.getProperty());
+            if (next == null) {
+                throw new IllegalArgumentException("Cannot sort cached tasks by " + order.getProperty());
+            }
+            if (order.isDescending()) {
+                next = next.reversed(); // nulls sort low, as in the database: first ascending, last descending
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<TaskResponseDTO> nullsFirst(
+            Function<TaskResponseDTO, T> key) {
+        return Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    private record Snapshot(long version, List<TaskResponseDTO> tasks) {
+    }
+}
@@ -0,0 +1,378 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over task titles and descriptions, one per user, so a search only ever touches
+ * the postings of the searching user's tasks. Terms live in a sorted map, which turns prefix matching into
+ * a range scan; hits are ranked with BM25, title terms counting twice. A search across all users takes
+ * document counts and lengths from all indexes, so that scores of different users' tasks are comparable.
+ * <p>
+ * The index is built from the database once the application is ready and kept current from committed
+ * TaskChangeEvents. It is a cache of the tasks table, not a source of truth: callers load the hits from
+ * the database, which also drops any task the index still holds but that is already gone.
+ */
+@Component
+public class TaskSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TaskSearchIndex.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MAX_QUERY_TERMS = 10;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final float TITLE_WEIGHT = 2f;
+    private static final double PREFIX_MATCH_WEIGHT = 0.5;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Comparator<Hit> BY_SCORE = Comparator.comparingDouble(Hit::score)
+            .thenComparing(Hit::taskId, Comparator.reverseOrder());
+
+    private final Map<UUID, UserIndex> indexes = new ConcurrentHashMap<>();
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean ready;
+
+    @Value("${spring.app.taskExportFetchSize}")
+    private int fetchSize;
+
+    public TaskSearchIndex(TaskRepository taskRepository, PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // change events are handled after the writer's commit, where its transaction can no longer be used
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Loads all tasks into the index. Changes committed meanwhile are applied as they come;
+     * document versions keep a stale row from the rebuild from overwriting a newer one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int[] count = {0};
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<TaskResponseDTO> tasks = taskRepository.streamTaskResponses(
+                    TaskSpecifications.ownedBy(null), Sort.by("id"), fetchSize, false)) {
+                tasks.forEach(task -> {
+                    index(task);
+                    count[0]++;
+                });
+            }
+        });
+
+        ready = true;
+        logger.info("Indexed {} tasks for search in {} ms", count[0], System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        remove(event.userId(), event.removedTaskIds());
+
+        if (!event.changedTaskIds().isEmpty()) {
+            // the owner is taken from the row: a task reassigned since then is indexed for its new owner
+            transactionTemplate.executeWithoutResult(status -> taskRepository.findTaskResponses(
+                    TaskSpecifications.idIn(event.changedTaskIds()), Sort.unsorted(), false).forEach(this::index));
+        }
+    }
+
+    /**
+     * @return Whether the initial build has completed.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Finds the best matching tasks. Every query term must match a term of the task, either exactly
+     * or, for query terms of at least two characters, as a prefix; exact matches rank higher.
+     * @param userId Owner UUID, or null to search the tasks of all users.
+     * @param query Search text.
+     * @param limit Maximum number of results.
+     * @return Task UUIDs, best match first.
+     */
+    public List<UUID> search(UUID userId, String query, int limit) {
+        List<String> terms = tokenize(query).stream().distinct().limit(MAX_QUERY_TERMS).toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(BY_SCORE);
+        if (userId != null) {
+            UserIndex index = indexes.get(userId);
+            if (index != null) {
+                index.search(terms, limit, best, null);
+            }
+        } else {
+            CorpusStatistics statistics = new CorpusStatistics();
+            indexes.values().forEach(index -> index.collectStatistics(terms, statistics));
+            indexes.values().forEach(index -> index.search(terms, limit, best, statistics));
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(BY_SCORE.reversed());
+        return hits.stream().map(Hit::taskId).toList();
+    }
+
+    /**
+     * Removes tasks from a user's index.
+     * @param userId Owner UUID.
+     * @param taskIds Task UUIDs.
+     */
+    public void remove(UUID userId, Collection<UUID> taskIds) {
+        UserIndex index = indexes.get(userId);
+        if (index != null && !taskIds.isEmpty()) {
+            index.remove(taskIds);
+        }
+    }
+
+    /**
+     * Removes tasks from the indexes of all users, for callers that do not know the owner.
+     * @param taskIds Task UUIDs.
+     */
+    public void removeFromAll(Collection<UUID> taskIds) {
+        if (!taskIds.isEmpty()) {
+            indexes.values().forEach(index -> index.remove(taskIds));
+        }
+    }
+
+    /**
+     * Drops a user's whole index.
+     * @param userId User UUID.
+     */
+    public void removeUser(UUID userId) {
+        indexes.remove(userId);
+    }
+
+    private void index(TaskResponseDTO task) {
+        indexes.computeIfAbsent(task.getUserId(), id -> new UserIndex())
+                .put(task.getId(), task.getVersion(), task.getTitle(), task.getDescription());
+    }
+
+    /**
+     * Splits text into lower-case terms without diacritics, so "Résumé" is found by "resume".
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> terms = new ArrayList<>();
+        for (String term : NON_WORD.split(normalized)) {
+            if (!term.isEmpty()) {
+                terms.add(term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term);
+            }
+        }
+        return terms;
+    }
+
+    private record Hit(UUID taskId, double score) {
+    }
+
+    private record Document(long version, Map<String, Float> termFrequencies, float length) {
+    }
+
+    /**
+     * Document count, total length and per-term document frequencies summed over several user indexes.
+     */
+    private static final class CorpusStatistics {
+        private final Map<String, Integer> documentFrequencies = new ConcurrentHashMap<>();
+        private long documentCount;
+        private double totalLength;
+
+        synchronized void add(int documents, double length) {
+            documentCount += documents;
+            totalLength += length;
+        }
+    }
+
+    private static final class UserIndex {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<UUID, Document> documents = new HashMap<>();
+        private final NavigableMap<String, Map<UUID, Float>> postings = new TreeMap<>();
+        private double totalLength;
+
+        void put(UUID taskId, Long version, String title, String description) {
+            long documentVersion = version != null ? version : 0L;
+
+            Map<String, Float> termFrequencies = new HashMap<>();
+            tokenize(title).forEach(term -> termFrequencies.merge(term, TITLE_WEIGHT, Float::sum));
+            tokenize(description).forEach(term -> termFrequencies.merge(term, 1f, Float::sum));
+            float length = (float) termFrequencies.values().stream().mapToDouble(Float::doubleValue).sum();
+
+            lock.writeLock().lock();
+            try {
+                Document existing = documents.get(taskId);
+                if (existing != null) {
+                    if (existing.version() > documentVersion) {
+                        return;
+                    }
+                    unlink(taskId, existing);
+                }
+
+                Document document = new Document(documentVersion, termFrequencies, length);
+                documents.put(taskId, document);
+                totalLength += length;
+                termFrequencies.forEach((term, frequency) ->
+                        postings.computeIfAbsent(term, t -> new HashMap<>()).put(taskId, frequency));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Collection<UUID> taskIds) {
+            lock.writeLock().lock();
+            try {
+                for (UUID taskId : taskIds) {
+                    Document existing = documents.remove(taskId);
+                    if (existing != null) {
+                        unlink(taskId, existing);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void collectStatistics(List<String> terms, CorpusStatistics statistics) {
+            lock.readLock().lock();
+            try {
+                statistics.add(documents.size(), totalLength);
+                for (String term : terms) {
+                    Map<UUID, Float> exact = postings.get(term);
+                    if (exact != null) {
+                        statistics.documentFrequencies.merge(term, exact.size(), Integer::sum);
+                    }
+                    if (term.length() >= MIN_PREFIX_LENGTH) {
+                        postings.subMap(term, false, term + Character.MAX_VALUE, false).forEach((indexTerm, matches) ->
+                                statistics.documentFrequencies.merge(indexTerm, matches.size(), Integer::sum));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * @param statistics Statistics of all searched indexes, or null to use this index's own.
+         */
+        void search(List<String> terms, int limit, PriorityQueue<Hit> best, CorpusStatistics statistics) {
+            lock.readLock().lock();
+            try {
+                if (documents.isEmpty()) {
+                    return;
+                }
+
+                long documentCount = statistics != null ? statistics.documentCount : documents.size();
+                double averageLength = Math.max((statistics != null ? statistics.totalLength : totalLength)
+                        / Math.max(documentCount, 1), 1);
+                Map<UUID, Double> scores = null;
+
+                for (String term : terms) {
+                    Map<UUID, Double> termScores = new HashMap<>();
+                    Map<UUID, Float> exact = postings.get(term);
+                    if (exact != null) {
+                        score(exact, documentFrequency(term, exact, statistics), documentCount, 1, averageLength,
+                                termScores);
+                    }
+                    if (term.length() >= MIN_PREFIX_LENGTH) {
+                        postings.subMap(term, false, term + Character.MAX_VALUE, false).forEach((indexTerm, matches) ->
+                                score(matches, documentFrequency(indexTerm, matches, statistics), documentCount,
+                                        PREFIX_MATCH_WEIGHT, averageLength, termScores));
+                    }
+
+                    if (scores == null) {
+                        scores = termScores;
+                    } else {
+                        scores.keySet().retainAll(termScores.keySet());
+                        scores.replaceAll((taskId, score) -> score + termScores.get(taskId));
+                    }
+                    if (scores.isEmpty()) {
+                        return;
+                    }
+                }
+
+                synchronized (best) {
+                    scores.forEach((taskId, score) -> {
+                        best.offer(new Hit(taskId, score));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    });
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Adds the BM25 score of one index term to each task containing it, keeping a task's best
+         * score when several terms match the same query term by prefix.
+         */
+        private void score(Map<UUID, Float> matches, int documentFrequency, long documentCount, double weight,
+                           double averageLength, Map<UUID, Double> termScores) {
+            double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+            matches.forEach((taskId, frequency) -> {
+                double length = documents.get(taskId).length();
+                double score = weight * idf * frequency * (K1 + 1)
+                        / (frequency + K1 * (1 - B + B * length / averageLength));
+                termScores.merge(taskId, score, Math::max);
+            });
+        }
+
+        private static int documentFrequency(String term, Map<UUID, Float> matches, CorpusStatistics statistics) {
+            // an index changed since the statistics were collected may hold a term they do not count yet
+            return statistics != null ? Math.max(statistics.documentFrequencies.getOrDefault(term, 0), matches.size())
+                    : matches.size();
+        }
+
+        private void unlink(UUID taskId, Document document) {
+            totalLength -= document.length();
+            document.termFrequencies().keySet().forEach(term -> {
+                Map<UUID, Float> matches = postings.get(term);
+                matches.remove(taskId);
+                if (matches.isEmpty()) {
+                    postings.remove(term);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over tasks. Ranking happens in the TaskSearchIndex; the database is only asked for
+ * the few hits by primary key, so no LIKE scan ever runs.
+ */
+@Service
+public class TaskSearchService {
+    private final TaskSearchIndex taskSearchIndex;
+    private final TaskRepository taskRepository;
+
+    @Value("${spring.app.taskPageMaxSize}")
+    private int maxResults;
+
+    public TaskSearchService(TaskSearchIndex taskSearchIndex, TaskRepository taskRepository) {
+        this.taskSearchIndex = taskSearchIndex;
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Searches tasks by title and description.
+     * @param userId Owner UUID, or null to search the tasks of all users.
+     * @param query Search text; terms match whole words or word prefixes.
+     * @param limit Maximum number of results, clamped to the configured maximum.
+     * @param includeUser Whether to include the owner in each task.
+     * @return Matching tasks, best match first.
+     * @throws ResponseStatusException with 400 for an empty query, or 503 while the index is being built.
+     */
+    public List<TaskResponseDTO> search(UUID userId, String query, int limit, boolean includeUser) {
+        if (query == null || query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query is required");
+        }
+        if (!taskSearchIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is being built, please try again later");
+        }
+
+        List<UUID> taskIds = taskSearchIndex.search(userId, query, Math.max(1, Math.min(limit, maxResults)));
+        if (taskIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, TaskResponseDTO> tasks = taskRepository.findTaskResponses(
+                        TaskSpecifications.idIn(taskIds).and(TaskSpecifications.ownedBy(userId)), Sort.unsorted(), includeUser)
+                .stream()
+                .collect(Collectors.toMap(TaskResponseDTO::getId, Function.identity()));
+
+        if (tasks.size() < taskIds.size()) {
+            // the index lagged behind a delete or reassignment; forget those hits
+            List<UUID> stale = taskIds.stream().filter(id -> !tasks.containsKey(id)).toList();
+            if (userId != null) {
+                taskSearchIndex.remove(userId, stale);
+            } else {
+                taskSearchIndex.removeFromAll(stale);
+            }
+        }
+
+        return taskIds.stream().map(tasks::get).filter(Objects::nonNull).toList();
+    }
+}
@@ -1,28 +1,62 @@
 package io.leedsk1y.taskmanagerx_backend.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskBatchRequestDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskBatchResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskChangesResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskPageResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
 import io.leedsk1y.taskmanagerx_backend.models.Task;
 import io.leedsk1y.taskmanagerx_backend.models.User;
 import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
-import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSortKey;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSorts;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
+import io.leedsk1y.taskmanagerx_backend.security.jwt.JwtPrincipal;
+import io.leedsk1y.taskmanagerx_backend.security.services.PrincipalCache;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class TaskService {
     private final TaskRepository taskRepository;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TaskPageService taskPageService;
+    private final TaskExportService taskExportService;
+    private final TaskBatchService taskBatchService;
+    private final TaskChangeTracker taskChangeTracker;
+    private final TaskPatchService taskPatchService;
+    private final TaskSyncService taskSyncService;
+    private final TaskEventHub taskEventHub;
+    private final TaskSearchService taskSearchService;
+    private final TaskReadCache taskReadCache;
 
-    public TaskService(TaskRepository taskRepository, UserRepository userRepository) {
+    public TaskService(TaskRepository taskRepository, PrincipalCache principalCache, TaskPageService taskPageService,
+                       TaskExportService taskExportService, TaskBatchService taskBatchService,
+                       TaskChangeTracker taskChangeTracker, TaskPatchService taskPatchService,
+                       TaskSyncService taskSyncService, TaskEventHub taskEventHub,
+                       TaskSearchService taskSearchService, TaskReadCache taskReadCache) {
         this.taskRepository = taskRepository;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.taskPageService = taskPageService;
+        this.taskExportService = taskExportService;
+        this.taskBatchService = taskBatchService;
+        this.taskChangeTracker = taskChangeTracker;
+        this.taskPatchService = taskPatchService;
+        this.taskSyncService = taskSyncService;
+        this.taskEventHub = taskEventHub;
+        this.taskSearchService = taskSearchService;
+        this.taskReadCache = taskReadCache;
     }
 
     /**
@@ -31,20 +65,108 @@ public class TaskService {
      */
     private User getAuthenticatedUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
+        return principalCache.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    /**
+     * Retrieves the ID of the currently authenticated user, without a lookup when the principal already carries it.
+     * @return The authenticated user's UUID.
+     */
+    private UUID getAuthenticatedUserId() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        if (principal instanceof JwtPrincipal jwtPrincipal) {
+            return jwtPrincipal.id();
+        }
+        if (principal instanceof User user) {
+            return user.getId();
+        }
+        return getAuthenticatedUser().getId();
+    }
+
+    /**
+     * Reads a task of the given user in one statement.
+     * @param taskId Task UUID.
+     * @param userId Owner UUID.
+     * @return TaskResponseDTO containing task details.
+     */
+    private TaskResponseDTO findOwnedTask(UUID taskId, UUID userId) {
+        return taskRepository.findTaskResponses(TaskSpecifications.hasId(taskId).and(TaskSpecifications.ownedBy(userId)),
+                        Sort.unsorted(), 1, false)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Task not found or access denied"));
+    }
+
+    /**
+     * Computes the ETag shared by all task collections of the authenticated user. It changes whenever one of their
+     * tasks changes, so it can be compared with If-None-Match before any task is read.
+     * @return Strong ETag value.
+     */
+    public String getTasksETagForAuthenticatedUser() {
+        UUID userId = getAuthenticatedUserId();
+        return TaskETags.forTasks(userId, taskChangeTracker.getVersion(userId));
+    }
+
+    /**
+     * Computes the ETag of a single task of the authenticated user from the task's version.
+     * @param taskId Task UUID.
+     * @return Strong ETag value.
+     */
+    public String getTaskETagForAuthenticatedUser(UUID taskId) {
+        long version = taskRepository.findVersionByIdAndUserId(taskId, getAuthenticatedUserId())
+                .orElseThrow(() -> new RuntimeException("Task not found or access denied"));
+        return TaskETags.forTask(taskId, version);
+    }
+
     /**
      * Retrieves all tasks for the authenticated user.
      * @return List of tasks as TaskResponseDTO.
      */
     public List<TaskResponseDTO> getTasksForAuthenticatedUser() {
-        User user = getAuthenticatedUser();
-        return taskRepository.findTasksByUserId(user.getId())
-                .stream()
-                .map(task -> new TaskResponseDTO(task, false))
-                .collect(Collectors.toList());
+        return taskReadCache.getTasks(getAuthenticatedUserId());
+    }
+
+    /**
+     * Retrieves one page of tasks for the authenticated user, ordered by creation time.
+     * @param cursor Continuation token from the previous page, or null for the first page.
+     * @param limit Maximum number of tasks in the page.
+     * @return Page of tasks with the token for the next page.
+     */
+    public TaskPageResponseDTO getTaskPageForAuthenticatedUser(String cursor, int limit) {
+        UUID userId = getAuthenticatedUserId();
+        return taskPageService.findPage(TaskSpecifications.ownedBy(userId),
+                TaskSortKey.CREATED_AT, Sort.Direction.ASC, cursor, limit, false);
+    }
+
+    /**
+     * Retrieves the changes to the authenticated user's tasks since a sync token.
+     * @param since Token from the previous response, or null to get all tasks.
+     * @return Changed and deleted tasks with the next token.
+     */
+    public TaskChangesResponseDTO getTaskChangesForAuthenticatedUser(String since) {
+        return taskSyncService.getChanges(getAuthenticatedUserId(), since);
+    }
+
+    /**
+     * Searches the authenticated user's tasks by title and description.
+     * @param query Search text.
+     * @param limit Maximum number of results.
+     * @return Matching tasks, best match first.
+     */
+    public List<TaskResponseDTO> searchTasksForAuthenticatedUser(String query, int limit) {
+        return taskSearchService.search(getAuthenticatedUserId(), query, limit, false);
+    }
+
+    /**
+     * Opens a stream of change events for the authenticated user's tasks.
+     * @return Emitter that receives an event after every committed change.
+     */
+    public SseEmitter subscribeToTaskEventsForAuthenticatedUser() {
+        UUID userId = getAuthenticatedUserId();
+        // read before subscribing: changes made in between are caught up through the token rather than lost
+        return taskEventHub.subscribe(userId, taskSyncService.getCurrentToken(userId));
     }
 
     /**
@@ -53,11 +175,7 @@ public class TaskService {
      * @return TaskResponseDTO containing task details.
      */
     public TaskResponseDTO getTaskByIdForAuthenticatedUser(UUID taskId) {
-        User user = getAuthenticatedUser();
-        Task task = taskRepository.findById(taskId)
-                .filter(t -> t.getUser().getId().equals(user.getId()))
-                .orElseThrow(() -> new RuntimeException("Task not found or access denied"));
-        return new TaskResponseDTO(task, false);
+        return findOwnedTask(taskId, getAuthenticatedUserId());
     }
 
     /**
@@ -65,12 +183,17 @@ public class TaskService {
      * @param task Task details.
      * @return TaskResponseDTO containing the created task details.
      */
+    @Transactional
     public TaskResponseDTO createTask(Task task) {
         User user = getAuthenticatedUser();
         task.setUser(user);
         task.setStatus(ETaskStatus.PENDING);
         task.setCreatedAt(LocalDateTime.now());
-        return new TaskResponseDTO(taskRepository.save(task), false);
+        task.setVersion(null); // a version sent by the client would make save() merge instead of insert
+
+        TaskResponseDTO created = new TaskResponseDTO(taskRepository.save(task), false);
+        taskChangeTracker.recordChange(user.getId(), List.of(created.getId()));
+        return created;
     }
 
     /**
@@ -79,18 +202,30 @@ public class TaskService {
      * @param updatedTask Updated task details.
      * @return TaskResponseDTO containing the updated task details.
      */
+    @Transactional
     public TaskResponseDTO updateTaskForAuthenticatedUser(UUID taskId, Task updatedTask) {
-        User user = getAuthenticatedUser();
-        Task existingTask = taskRepository.findById(taskId)
-                .filter(t -> t.getUser().getId().equals(user.getId()))
-                .orElseThrow(() -> new RuntimeException("Task not found or access denied"));
+        UUID userId = getAuthenticatedUserId();
+        int updated = taskRepository.updateByIdAndUserId(taskId, userId, updatedTask.getTitle(),
+                updatedTask.getDescription(), updatedTask.getStatus(), updatedTask.getDueDate(), LocalDateTime.now());
 
-        existingTask.setTitle(updatedTask.getTitle());
-        existingTask.setDescription(updatedTask.getDescription());
-        existingTask.setStatus(updatedTask.getStatus());
-        existingTask.setDueDate(updatedTask.getDueDate());
+        if (updated == 0) {
+            throw new RuntimeException("Task not found or access denied");
+        }
 
-        return new TaskResponseDTO(taskRepository.save(existingTask), false);
+        taskChangeTracker.recordChange(userId, List.of(taskId));
+        return findOwnedTask(taskId, userId);
+    }
+
+    /**
+     * Partially updates a task of the authenticated user with a JSON Merge Patch.
+     * @param taskId Task UUID.
+     * @param patch Merge patch document.
+     * @param ifMatch Value of the If-Match header, may be null.
+     * @return TaskResponseDTO containing the updated task details.
+     */
+    public TaskResponseDTO patchTaskForAuthenticatedUser(UUID taskId, JsonNode patch, String ifMatch) {
+        return taskPatchService.patch(taskId, getAuthenticatedUserId(), patch,
+                TaskETags.parseTaskVersion(taskId, ifMatch), false);
     }
 
     /**
@@ -99,27 +234,41 @@ public class TaskService {
      * @param status New task status.
      * @return TaskResponseDTO containing the updated task details.
      */
+    @Transactional
     public TaskResponseDTO updateTaskStatusForAuthenticatedUser(UUID taskId, String status) {
-        User user = getAuthenticatedUser();
-        Task existingTask = taskRepository.findById(taskId)
-                .filter(t -> t.getUser().getId().equals(user.getId()))
-                .orElseThrow(() -> new RuntimeException("Task not found or access denied"));
+        UUID userId = getAuthenticatedUserId();
+        int updated = taskRepository.updateStatusByIdAndUserId(taskId, userId, ETaskStatus.valueOf(status),
+                LocalDateTime.now());
 
-        existingTask.setStatus(ETaskStatus.valueOf(status));
-        return new TaskResponseDTO(taskRepository.save(existingTask), false);
+        if (updated == 0) {
+            throw new RuntimeException("Task not found or access denied");
+        }
+
+        taskChangeTracker.recordChange(userId, List.of(taskId));
+        return findOwnedTask(taskId, userId);
     }
 
     /**
      * Deletes a task for the authenticated user.
      * @param taskId Task UUID.
      */
+    @Transactional
     public void deleteTaskForAuthenticatedUser(UUID taskId) {
-        User user = getAuthenticatedUser();
-        Task task = taskRepository.findById(taskId)
-                .filter(t -> t.getUser().getId().equals(user.getId()))
-                .orElseThrow(() -> new RuntimeException("Task not found or access denied"));
+        UUID userId = getAuthenticatedUserId();
+        if (taskRepository.deleteByIdAndUserId(taskId, userId) == 0) {
+            throw new RuntimeException("Task not found or access denied");
+        }
 
-        taskRepository.delete(task);
+        taskChangeTracker.recordRemoval(userId, List.of(taskId));
+    }
+
+    /**
+     * Applies a batch of task changes for the authenticated user in one transaction.
+     * @param request Creates, updates, status changes and deletes.
+     * @return Per-item results.
+     */
+    public TaskBatchResponseDTO applyBatchForAuthenticatedUser(TaskBatchRequestDTO request) {
+        return taskBatchService.apply(getAuthenticatedUserId(), request);
     }
 
     /**
@@ -127,14 +276,45 @@ public class TaskService {
      * @param status Task status.
      * @param dueDateBefore Filter tasks due before this date.
      * @param dueDateAfter Filter tasks due after this date.
+     * @param sort Requested multi-field sort, may be unsorted.
      * @return List of filtered tasks as TaskResponseDTO.
      */
-    public List<TaskResponseDTO> filterTasksForAuthenticatedUser(ETaskStatus status, LocalDateTime dueDateBefore, LocalDateTime dueDateAfter) {
-        User user = getAuthenticatedUser();
-        return taskRepository.findTasksByFilters(user.getId(), status, dueDateBefore, dueDateAfter)
-                .stream()
-                .map(task -> new TaskResponseDTO(task, false))
-                .collect(Collectors.toList());
+    public List<TaskResponseDTO> filterTasksForAuthenticatedUser(ETaskStatus status, LocalDateTime dueDateBefore,
+                                                                 LocalDateTime dueDateAfter, Sort sort) {
+        return taskReadCache.findTasks(getAuthenticatedUserId(), status, dueDateBefore, dueDateAfter,
+                TaskSorts.resolve(sort, false));
+    }
+
+    /**
+     * Filters tasks for the authenticated user and returns one page, ordered by creation time.
+     * @param status Task status.
+     * @param dueDateBefore Filter tasks due before this date.
+     * @param dueDateAfter Filter tasks due after this date.
+     * @param cursor Continuation token from the previous page, or null for the first page.
+     * @param limit Maximum number of tasks in the page.
+     * @return Page of filtered tasks with the token for the next page.
+     */
+    public TaskPageResponseDTO filterTaskPageForAuthenticatedUser(ETaskStatus status, LocalDateTime dueDateBefore,
+                                                                  LocalDateTime dueDateAfter, String cursor, int limit) {
+        UUID userId = getAuthenticatedUserId();
+        Specification<Task> filter = TaskSpecifications.matching(userId, status, dueDateBefore, dueDateAfter);
+
+        return taskPageService.findPage(filter, TaskSortKey.CREATED_AT, Sort.Direction.ASC, cursor, limit, false);
+    }
+
+    /**
+     * Exports the authenticated user's tasks matching the given filters.
+     * @param status Task status.
+     * @param dueDateBefore Filter tasks due before this date.
+     * @param dueDateAfter Filter tasks due after this date.
+     * @param format Output format.
+     * @return Body that streams the export to the response.
+     */
+    public StreamingResponseBody exportTasksForAuthenticatedUser(ETaskStatus status, LocalDateTime dueDateBefore,
+                                                                 LocalDateTime dueDateAfter, TaskExportService.Format format) {
+        UUID userId = getAuthenticatedUserId();
+        return taskExportService.export(TaskSpecifications.matching(userId, status, dueDateBefore, dueDateAfter),
+                false, format);
     }
 
     /**
@@ -143,14 +323,25 @@ public class TaskService {
      * @return List of sorted tasks as TaskResponseDTO.
      */
     public List<TaskResponseDTO> sortTasksForAuthenticatedUser(String order) {
-        User user = getAuthenticatedUser();
         Sort sort = order.equalsIgnoreCase("desc") ?
                 Sort.by(Sort.Direction.DESC, "dueDate") :
                 Sort.by(Sort.Direction.ASC, "dueDate");
 
-        return taskRepository.findTasksByUserId(user.getId(), sort)
-                .stream()
-                .map(task -> new TaskResponseDTO(task, false))
-                .collect(Collectors.toList());
+        return taskReadCache.findTasks(getAuthenticatedUserId(), null, null, null, sort);
+    }
+
+    /**
+     * Sorts tasks for the authenticated user based on due date and returns one page.
+     * @param order Sorting order ("asc" or "desc").
+     * @param cursor Continuation token from the previous page, or null for the first page.
+     * @param limit Maximum number of tasks in the page.
+     * @return Page of sorted tasks with the token for the next page.
+     */
+    public TaskPageResponseDTO sortTaskPageForAuthenticatedUser(String order, String cursor, int limit) {
+        UUID userId = getAuthenticatedUserId();
+        Sort.Direction direction = order.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        return taskPageService.findPage(TaskSpecifications.ownedBy(userId),
+                TaskSortKey.DUE_DATE, direction, cursor, limit, false);
     }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskChangesResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskSpecifications;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskTombstoneRepository;
+import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Delta sync of a user's tasks. A sync token is the user's task counter (see TaskChangeTracker) at the time the
+ * previous response was computed; the next call returns tasks stamped with a later counter value (served by the
+ * (user_id, change_seq) index) and tombstones of tasks that left the user's list, so the cost depends on the
+ * amount of change rather than on the number of tasks.
+ * <p>
+ * The counter is read first. A user's changes commit in counter order, so every change up to that value is
+ * visible to the queries that follow; changes committed meanwhile may be returned now and again next time,
+ * which is harmless because applying them is idempotent. No clocks are involved, so long transactions and
+ * clock adjustments cannot make a change slip past a token.
+ * <p>
+ * Tombstones are purged after spring.app.taskTombstoneRetentionMs. A token older than the newest purged
+ * tombstone of its user is rejected with 410, and the client has to reload all tasks.
+ */
+@Service
+public class TaskSyncService {
+    private static final Sort CHANGE_ORDER = Sort.by("changeSeq", "id");
+
+    private final TaskRepository taskRepository;
+    private final TaskTombstoneRepository taskTombstoneRepository;
+    private final UserRepository userRepository;
+    private final TaskChangeTracker taskChangeTracker;
+
+    @Value("${spring.app.taskTombstoneRetentionMs}")
+    private long tombstoneRetentionMs;
+
+    public TaskSyncService(TaskRepository taskRepository, TaskTombstoneRepository taskTombstoneRepository,
+                           UserRepository userRepository, TaskChangeTracker taskChangeTracker) {
+        this.taskRepository = taskRepository;
+        this.taskTombstoneRepository = taskTombstoneRepository;
+        this.userRepository = userRepository;
+        this.taskChangeTracker = taskChangeTracker;
+    }
+
+    /**
+     * Retrieves the changes to a user's tasks since a sync token.
+     * @param userId Owner UUID.
+     * @param token Token from the previous response, or null to get all tasks.
+     * @return Changed and deleted tasks together with the next token.
+     * @throws ResponseStatusException with 400 for an invalid token, or 410 if tombstones the token still needs
+     *         have been purged and the client has to reload all tasks.
+     */
+    @Transactional(readOnly = true)
+    public TaskChangesResponseDTO getChanges(UUID userId, String token) {
+        long current = taskChangeTracker.getVersion(userId);
+
+        if (token == null || token.isEmpty()) {
+            List<TaskResponseDTO> all = taskRepository.findTaskResponses(TaskSpecifications.ownedBy(userId),
+                    CHANGE_ORDER, false);
+            return new TaskChangesResponseDTO(all, List.of(), encode(current));
+        }
+
+        long since = decode(token);
+        if (since > current) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Sync token is unknown, reload all tasks");
+        }
+
+        List<TaskResponseDTO> changed = taskRepository.findTaskResponses(
+                TaskSpecifications.ownedBy(userId).and(TaskSpecifications.changedAfter(since)), CHANGE_ORDER, false);
+
+        // a task reassigned away and back again is live, even though it left a tombstone on the way
+        Set<UUID> changedIds = changed.stream().map(TaskResponseDTO::getId).collect(Collectors.toSet());
+        List<UUID> deleted = taskTombstoneRepository.findTaskIdsRemovedAfter(userId, since).stream()
+                .filter(id -> !changedIds.contains(id))
+                .toList();
+
+        // checked after reading the tombstones: a purge committed before that read is seen here
+        if (since < userRepository.findTombstonesPurgedSeqById(userId).orElse(0L)) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Sync token expired, reload all tasks");
+        }
+
+        return new TaskChangesResponseDTO(changed, deleted, encode(current));
+    }
+
+    /**
+     * Retrieves a sync token for the user's current task counter, without reading any tasks.
+     * @param userId Owner UUID.
+     * @return Token to pass as "since" to get the changes made from now on.
+     */
+    public String getCurrentToken(UUID userId) {
+        return encode(taskChangeTracker.getVersion(userId));
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.taskTombstonePurgeIntervalMs}")
+    @Transactional
+    public void purgeTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(tombstoneRetentionMs, ChronoUnit.MILLIS);
+        userRepository.updateTombstonesPurgedSeq(cutoff);
+        taskTombstoneRepository.deleteOlderThan(cutoff);
+    }
+
+    private static String encode(long changeSeq) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(changeSeq).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decode(String token) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sync token");
+        }
+    }
+}
@@ -2,10 +2,10 @@ package io.leedsk1y.taskmanagerx_backend.services;
 
 import io.leedsk1y.taskmanagerx_backend.dto.UserDetailedResponseDTO;
 import io.leedsk1y.taskmanagerx_backend.models.User;
-import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
 import io.leedsk1y.taskmanagerx_backend.repositories.UserRepository;
 import io.leedsk1y.taskmanagerx_backend.security.jwt.CookieUtils;
 import io.leedsk1y.taskmanagerx_backend.security.jwt.JwtUtils;
+import io.leedsk1y.taskmanagerx_backend.security.services.PrincipalCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.Authentication;
@@ -16,13 +16,16 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserService {
     private final UserRepository userRepository;
-    private final TaskRepository taskRepository;
     private final JwtUtils jwtUtils;
+    private final PrincipalCache principalCache;
+    private final AccountDeletionService accountDeletionService;
 
-    public UserService(UserRepository userRepository, TaskRepository taskRepository, JwtUtils jwtUtils) {
+    public UserService(UserRepository userRepository, JwtUtils jwtUtils, PrincipalCache principalCache,
+                       AccountDeletionService accountDeletionService) {
         this.userRepository = userRepository;
-        this.taskRepository = taskRepository;
         this.jwtUtils = jwtUtils;
+        this.principalCache = principalCache;
+        this.accountDeletionService = accountDeletionService;
     }
 
     /**
@@ -31,7 +34,7 @@ public class UserService {
      */
     public UserDetailedResponseDTO getAuthenticatedUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email)
+        User user = principalCache.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return new UserDetailedResponseDTO(user);
     }
@@ -48,6 +51,7 @@ public class UserService {
 
         user.setName(name);
         userRepository.save(user);
+        principalCache.evict(user);
         return new UserDetailedResponseDTO(user);
     }
 
@@ -74,11 +78,8 @@ public class UserService {
         }
 
         CookieUtils.clearJwtCookie(response);
+        CookieUtils.clearRefreshCookie(response);
 
-        taskRepository.deleteAll(taskRepository.findTasksByUserId(user.getId()));
-
-        user.getRoles().clear();
-        userRepository.save(user);
-        userRepository.delete(user);
+        accountDeletionService.deleteAccount(user);
     }
 }
@@ -0,0 +1,8 @@
+-- revoked JWTs, kept only until the token would have expired anyway
+CREATE TABLE revoked_tokens (
+    token_id VARCHAR(128) PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -0,0 +1,7 @@
+-- secondary indexes for the task list, filter, keyset pagination and export queries;
+-- id is the last column so that (key, id) seeks and orderings are served by the index alone
+CREATE INDEX idx_tasks_user_status_due_date ON tasks (user_id, status, due_date);
+CREATE INDEX idx_tasks_user_due_date ON tasks (user_id, due_date, id);
+CREATE INDEX idx_tasks_user_created_at ON tasks (user_id, created_at, id);
+CREATE INDEX idx_tasks_due_date ON tasks (due_date, id);
+CREATE INDEX idx_tasks_created_at ON tasks (created_at, id);
@@ -0,0 +1,4 @@
+-- accounts are marked deleted immediately and purged afterwards, possibly in the background
+ALTER TABLE users ADD COLUMN deleted_at TIMESTAMP;
+
+CREATE INDEX idx_users_deleted_at ON users (deleted_at);
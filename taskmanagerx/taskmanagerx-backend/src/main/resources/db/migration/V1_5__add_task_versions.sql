@@ -0,0 +1,5 @@
+-- optimistic-locking version of every task, and a per-user counter bumped on every change to the user's tasks;
+-- together they back the ETags of the task endpoints
+ALTER TABLE tasks ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE users ADD COLUMN tasks_version BIGINT NOT NULL DEFAULT 0;
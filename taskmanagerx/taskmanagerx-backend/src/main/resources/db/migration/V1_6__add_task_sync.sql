@@ -0,0 +1,17 @@
+-- delta sync: tasks remember when they last changed, deleted tasks leave a tombstone for their (former) owner
+ALTER TABLE tasks ADD COLUMN updated_at TIMESTAMP;
+UPDATE tasks SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP);
+ALTER TABLE tasks ALTER COLUMN updated_at SET NOT NULL;
+
+CREATE INDEX idx_tasks_user_updated_at ON tasks (user_id, updated_at);
+
+CREATE TABLE task_tombstones (
+    id UUID PRIMARY KEY,
+    task_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    deleted_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_task_tombstones_user_deleted_at ON task_tombstones (user_id, deleted_at);
+CREATE INDEX idx_task_tombstones_deleted_at ON task_tombstones (deleted_at);
@@ -0,0 +1,11 @@
+-- delta sync by change sequence instead of time: tasks and tombstones carry the owner's tasks_version produced by
+-- their last change, and users remember the highest one among their purged tombstones
+ALTER TABLE tasks ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE task_tombstones ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN tombstones_purged_seq BIGINT NOT NULL DEFAULT 0;
+
+DROP INDEX idx_tasks_user_updated_at;
+CREATE INDEX idx_tasks_user_change_seq ON tasks (user_id, change_seq);
+
+DROP INDEX idx_task_tombstones_user_deleted_at;
+CREATE INDEX idx_task_tombstones_user_change_seq ON task_tombstones (user_id, change_seq);
@@ -0,0 +1,2 @@
+-- accounts waiting to be purged give up their email, so it can be registered again right away
+UPDATE users SET email = CONCAT('deleted+', id, '@invalid') WHERE deleted_at IS NOT NULL;
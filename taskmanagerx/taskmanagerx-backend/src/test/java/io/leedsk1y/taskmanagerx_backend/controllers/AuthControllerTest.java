@@ -0,0 +1,119 @@
+package io.leedsk1y.taskmanagerx_backend.controllers;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String email;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        email = "auth-" + UUID.randomUUID() + "@example.com";
+        mockMvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Auth\",\"email\":\"" + email + "\",\"password\":\"secret12\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void refreshRotatesTheToken() throws Exception {
+        Cookie initial = refreshCookie(login());
+
+        Cookie rotated = refreshCookie(refresh(initial, status().isOk()));
+        assertNotEquals(initial.getValue(), rotated.getValue());
+
+        refresh(rotated, status().isOk());
+    }
+
+    @Test
+    void justRotatedTokenIsExchangedWithinTheGracePeriod() throws Exception {
+        Cookie initial = refreshCookie(login());
+        Cookie rotated = refreshCookie(refresh(initial, status().isOk()));
+
+        // a second tab refreshing with the same cookie moments later
+        Cookie sibling = refreshCookie(refresh(initial, status().isOk()));
+        assertNotEquals(rotated.getValue(), sibling.getValue());
+
+        refresh(rotated, status().isOk());
+        refresh(sibling, status().isOk());
+    }
+
+    @Test
+    void reuseAfterTheGracePeriodRevokesTheFamily() throws Exception {
+        Cookie initial = refreshCookie(login());
+        Cookie rotated = refreshCookie(refresh(initial, status().isOk()));
+
+        jdbcTemplate.update("UPDATE refresh_tokens SET rotated_at = ? WHERE rotated_at IS NOT NULL " +
+                        "AND user_id = (SELECT id FROM users WHERE email = ?)",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), email);
+
+        refresh(initial, status().isUnauthorized());
+        // the legitimate holder of the family is signed out as well
+        refresh(rotated, status().isUnauthorized());
+    }
+
+    @Test
+    void passwordChangeSignsOutOtherSessions() throws Exception {
+        Cookie[] current = login();
+        Cookie[] other = login();
+
+        Cookie[] renewed = mockMvc.perform(put("/auth/me/password").cookie(current)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"oldPassword\":\"secret12\",\"newPassword\":\"secret34\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookies();
+
+        mockMvc.perform(get("/tasks").cookie(other)).andExpect(status().isUnauthorized());
+        refresh(refreshCookie(other), status().isUnauthorized());
+        refresh(refreshCookie(current), status().isUnauthorized());
+
+        mockMvc.perform(get("/tasks").cookie(renewed)).andExpect(status().isOk());
+        refresh(refreshCookie(renewed), status().isOk());
+    }
+
+    private Cookie[] login() throws Exception {
+        return mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"secret12\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookies();
+    }
+
+    private Cookie[] refresh(Cookie refreshCookie, ResultMatcher expectedStatus) throws Exception {
+        return mockMvc.perform(post("/auth/refresh").cookie(refreshCookie))
+                .andExpect(expectedStatus)
+                .andReturn().getResponse().getCookies();
+    }
+
+    private static Cookie refreshCookie(Cookie[] cookies) {
+        return Arrays.stream(cookies)
+                .filter(cookie -> "refresh_token".equals(cookie.getName()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,115 @@
+package io.leedsk1y.taskmanagerx_backend.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import io.leedsk1y.taskmanagerx_backend.services.TaskChangeTracker;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoSpyBean
+    private TaskChangeTracker taskChangeTracker;
+
+    private Cookie[] cookies;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String email = "tasks-" + UUID.randomUUID() + "@example.com";
+        String credentials = "{\"name\":\"Tasks\",\"email\":\"" + email + "\",\"password\":\"secret12\"}";
+
+        mockMvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andExpect(status().isOk());
+        cookies = mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookies();
+    }
+
+    @Test
+    void conditionalGetIsRevalidatedByAWrite() throws Exception {
+        createTask("first");
+        MvcResult initial = mockMvc.perform(get("/tasks").cookie(cookies))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("first")))
+                .andReturn();
+        String etag = initial.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/tasks").cookie(cookies).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        createTask("second");
+
+        MvcResult changed = mockMvc.perform(get("/tasks").cookie(cookies).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("first")))
+                .andExpect(content().string(containsString("second")))
+                .andReturn();
+        String newEtag = changed.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+
+        mockMvc.perform(get("/tasks").cookie(cookies).header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(not(containsString("second"))));
+    }
+
+    @Test
+    void writeIsRolledBackWhenTheChangeCannotBeRecorded() throws Exception {
+        String taskId = createTask("kept");
+        String etag = mockMvc.perform(get("/tasks").cookie(cookies))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        doThrow(new IllegalStateException("counter unavailable")).when(taskChangeTracker).recordChange(any(), any());
+
+        assertThrows(ServletException.class, () -> createTask("lost"));
+        assertThrows(ServletException.class, () -> mockMvc.perform(put("/tasks/" + taskId + "/status").cookie(cookies)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"COMPLETED\"}")));
+
+        mockMvc.perform(get("/tasks").cookie(cookies).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        // the paged list reads the database directly: neither the new task nor the status change was committed
+        mockMvc.perform(get("/tasks").param("limit", "10").cookie(cookies))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("PENDING")))
+                .andExpect(content().string(not(containsString("COMPLETED"))))
+                .andExpect(content().string(not(containsString("lost"))));
+    }
+
+    private String createTask(String title) throws Exception {
+        String body = mockMvc.perform(post("/tasks").cookie(cookies)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"description\":\"\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.id");
+    }
+}
@@ -0,0 +1,197 @@
+package io.leedsk1y.taskmanagerx_backend.repositories;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.models.EAuthProvider;
+import io.leedsk1y.taskmanagerx_backend.models.ERole;
+import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
+import io.leedsk1y.taskmanagerx_backend.models.Task;
+import io.leedsk1y.taskmanagerx_backend.models.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "io.leedsk1y.taskmanagerx_backend.repositories.TaskRepositoryTest$CapturingStatementInspector"
+})
+class TaskRepositoryTest {
+    private static final int USERS = 5;
+    private static final int TASKS_PER_USER = 4;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int u = 0; u < USERS; u++) {
+            User user = new User();
+            user.setName("user" + u);
+            user.setEmail("user" + u + "@example.com");
+            user.setAuthProvider(EAuthProvider.DEFAULT);
+            user.getRoles().add(roleRepository.findByName(ERole.ROLE_USER).orElseThrow());
+            entityManager.persist(user);
+
+            for (int t = 0; t < TASKS_PER_USER; t++) {
+                Task task = new Task();
+                task.setTitle("task" + u + "-" + t);
+                task.setStatus(ETaskStatus.PENDING);
+                task.setDueDate(LocalDateTime.now().plusDays(t));
+                task.setUser(user);
+                entityManager.persist(task);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void adminListingIsASingleStatement() {
+        List<TaskResponseDTO> tasks = taskRepository.findTaskResponses(
+                Specification.where(null), Sort.by(Sort.Direction.ASC, "user.email"), true);
+
+        assertEquals(USERS * TASKS_PER_USER, tasks.size());
+        tasks.forEach(task -> assertNotNull(task.getUser().getEmail()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void filteredAdminPageIsASingleStatement() {
+        Specification<Task> filter = TaskSpecifications.hasStatus(ETaskStatus.PENDING)
+                .and(TaskSpecifications.dueAfter(LocalDateTime.now().minusDays(1)));
+
+        List<TaskResponseDTO> tasks = taskRepository.findTaskResponses(filter, Sort.by("dueDate", "id"), 7, true);
+
+        assertEquals(7, tasks.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void pageSortedByOwnerEmailIsASingleStatement() {
+        Sort sort = Sort.by(Sort.Direction.ASC, "user.email").and(Sort.by(Sort.Direction.ASC, "id"));
+        List<TaskResponseDTO> first = taskRepository.findTaskResponses(Specification.where(null), sort, TASKS_PER_USER, true);
+        TaskResponseDTO last = first.get(first.size() - 1);
+
+        List<TaskResponseDTO> second = taskRepository.findTaskResponses(
+                TaskSpecifications.seekAfter(TaskSortKey.USER_EMAIL, Sort.Direction.ASC, last.getUser().getEmail(), last.getId()),
+                sort, TASKS_PER_USER, true);
+
+        assertEquals(TASKS_PER_USER, second.size());
+        assertEquals("user1@example.com", second.get(0).getUser().getEmail());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void userFilterUsesCompositeIndex() {
+        UUID userId = userId("user2@example.com");
+        LocalDateTime dueBefore = LocalDateTime.now().plusDays(10);
+        Specification<Task> filter = TaskSpecifications.matching(userId, ETaskStatus.PENDING, dueBefore, null);
+        Sort sort = TaskSorts.resolve(Sort.by(Sort.Direction.DESC, "dueDate"), false);
+
+        CapturingStatementInspector.STATEMENTS.clear();
+        List<TaskResponseDTO> tasks = taskRepository.findTaskResponses(filter, sort, false);
+
+        assertEquals(TASKS_PER_USER, tasks.size());
+        String plan = explainLastStatement(userId, ETaskStatus.PENDING.name(), Timestamp.valueOf(dueBefore));
+        assertTrue(plan.contains("IDX_TASKS_USER_STATUS_DUE_DATE"), plan);
+    }
+
+    @Test
+    void changesSinceUseUserChangeSeqIndex() {
+        UUID userId = userId("user3@example.com");
+        Sort sort = Sort.by("changeSeq", "id");
+        List<UUID> taskIds = entityManager.getEntityManager()
+                .createQuery("SELECT t.id FROM Task t WHERE t.user.id = :userId", UUID.class)
+                .setParameter("userId", userId)
+                .getResultList();
+        taskRepository.updateChangeSeq(taskIds.subList(0, 1), 7);
+
+        assertEquals(TASKS_PER_USER, taskRepository.findTaskResponses(TaskSpecifications.ownedBy(userId)
+                .and(TaskSpecifications.changedAfter(-1L)), sort, false).size());
+        assertEquals(0, taskRepository.findTaskResponses(TaskSpecifications.ownedBy(userId)
+                .and(TaskSpecifications.changedAfter(7L)), sort, false).size());
+
+        CapturingStatementInspector.STATEMENTS.clear();
+        assertEquals(1, taskRepository.findTaskResponses(TaskSpecifications.ownedBy(userId)
+                .and(TaskSpecifications.changedAfter(6L)), sort, false).size());
+
+        String plan = explainLastStatement(userId, 6L);
+        assertTrue(plan.contains("IDX_TASKS_USER_CHANGE_SEQ"), plan);
+    }
+
+    /**
+     * Explains the last statement Hibernate prepared, with the given values bound to its parameters in order,
+     * so that the plan is the one of the SQL actually generated for the query.
+     */
+    private String explainLastStatement(Object... parameters) {
+        List<String> statements = CapturingStatementInspector.STATEMENTS;
+        assertFalse(statements.isEmpty(), "no statement captured");
+        String sql = statements.get(statements.size() - 1);
+
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet result = statement.executeQuery()) {
+                    result.next();
+                    return result.getString(1);
+                }
+            }
+        });
+    }
+
+    private UUID userId(String email) {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT u.id FROM User u WHERE u.email = :email", UUID.class)
+                .setParameter("email", email)
+                .getSingleResult();
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
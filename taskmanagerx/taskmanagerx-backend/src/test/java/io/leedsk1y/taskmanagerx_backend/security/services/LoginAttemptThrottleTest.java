@@ -0,0 +1,44 @@
+package io.leedsk1y.taskmanagerx_backend.security.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginAttemptThrottleTest {
+    private static final String EMAIL = "user@example.com";
+
+    private LoginAttemptThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        // 2 failures per email and IP, 100 per IP, 5 per email from anywhere
+        throttle = new LoginAttemptThrottle(2, 100, 5, 60000, 60000, 600000, 30000, 1000);
+    }
+
+    @Test
+    void emailIsLockedOutPerAddress() {
+        fail(EMAIL, "10.0.0.1");
+        fail(EMAIL, "10.0.0.1");
+
+        assertThrows(LoginAttemptThrottle.LoginThrottledException.class, () -> throttle.acquire(EMAIL, "10.0.0.1"));
+        // the user can still log in from elsewhere
+        assertDoesNotThrow(() -> throttle.acquire(EMAIL, "10.0.0.2"));
+    }
+
+    @Test
+    void guessesSpreadOverAddressesAreBoundedPerEmail() {
+        for (int i = 0; i < 5; i++) {
+            fail(EMAIL, "10.0.1." + i);
+        }
+
+        assertThrows(LoginAttemptThrottle.LoginThrottledException.class, () -> throttle.acquire(EMAIL, "10.0.1.99"));
+        assertDoesNotThrow(() -> throttle.acquire("other@example.com", "10.0.1.99"));
+    }
+
+    private void fail(String email, String clientIp) {
+        throttle.acquire(email, clientIp);
+        throttle.recordFailure(email, clientIp);
+    }
+}
@@ -0,0 +1,120 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskReadCacheTest {
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UUID TASK_X = UUID.randomUUID();
+    private static final UUID TASK_Y = UUID.randomUUID();
+
+    private TaskRepository taskRepository;
+    private TaskChangeTracker taskChangeTracker;
+    private TaskReadCache taskReadCache;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        taskChangeTracker = mock(TaskChangeTracker.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        taskReadCache = new TaskReadCache(taskRepository, taskChangeTracker, transactionManager,
+                new SimpleMeterRegistry(), 1000, 60000);
+
+        // snapshot loaded at counter 4, holding the original X
+        when(taskChangeTracker.getVersion(USER_ID)).thenReturn(4L);
+        whenTasksQueried(task(TASK_X, "x"));
+        assertEquals(List.of("x"), titles(taskReadCache.getTasks(USER_ID)));
+    }
+
+    @Test
+    void eventsInOrderPatchTheSnapshot() {
+        // writer A updates X (counter 5), writer B creates Y (counter 6)
+        whenTasksQueried(task(TASK_X, "x2"));
+        taskReadCache.onTaskChange(new TaskChangeEvent(USER_ID, 5, Set.of(TASK_X), Set.of()));
+        whenTasksQueried(task(TASK_Y, "y"));
+        taskReadCache.onTaskChange(new TaskChangeEvent(USER_ID, 6, Set.of(TASK_Y), Set.of()));
+
+        when(taskChangeTracker.getVersion(USER_ID)).thenReturn(6L);
+        assertEquals(List.of("x2", "y"), titles(taskReadCache.getTasks(USER_ID)));
+        // one load and two patches, no reload
+        verify(taskRepository, times(3)).findTaskResponses(any(), any(Sort.class), anyBoolean());
+    }
+
+    @Test
+    void eventsOutOfOrderReloadTheSnapshot() {
+        // B's event (counter 6) is handled before A's (counter 5): the snapshot cannot be patched past A
+        whenTasksQueried(task(TASK_Y, "y"));
+        taskReadCache.onTaskChange(new TaskChangeEvent(USER_ID, 6, Set.of(TASK_Y), Set.of()));
+        whenTasksQueried(task(TASK_X, "x2"));
+        taskReadCache.onTaskChange(new TaskChangeEvent(USER_ID, 5, Set.of(TASK_X), Set.of()));
+
+        when(taskChangeTracker.getVersion(USER_ID)).thenReturn(6L);
+        whenTasksQueried(task(TASK_X, "x2"), task(TASK_Y, "y"));
+        assertEquals(List.of("x2", "y"), titles(taskReadCache.getTasks(USER_ID)));
+    }
+
+    @Test
+    void unseenChangeReloadsTheSnapshot() {
+        // only A's event arrives; B (counter 6) was written by another instance
+        whenTasksQueried(task(TASK_X, "x2"));
+        taskReadCache.onTaskChange(new TaskChangeEvent(USER_ID, 5, Set.of(TASK_X), Set.of()));
+
+        when(taskChangeTracker.getVersion(USER_ID)).thenReturn(6L);
+        whenTasksQueried(task(TASK_X, "x2"), task(TASK_Y, "y"));
+        assertEquals(List.of("x2", "y"), titles(taskReadCache.getTasks(USER_ID)));
+    }
+
+    @Test
+    void changedRowsAreReadWithoutLockingTheSnapshot() {
+        when(taskRepository.findTaskResponses(any(Specification.class), any(Sort.class), anyBoolean()))
+                .thenAnswer(invocation -> {
+                    // would wait for the patch to finish if the query ran inside it
+                    CompletableFuture.runAsync(() -> taskReadCache.invalidate(USER_ID)).get(5, TimeUnit.SECONDS);
+                    return List.of(task(TASK_X, "x2"));
+                });
+        taskReadCache.onTaskChange(new TaskChangeEvent(USER_ID, 5, Set.of(TASK_X), Set.of()));
+
+        // the snapshot dropped meanwhile is not brought back by the patch
+        when(taskChangeTracker.getVersion(USER_ID)).thenReturn(5L);
+        whenTasksQueried(task(TASK_X, "x3"));
+        assertEquals(List.of("x3"), titles(taskReadCache.getTasks(USER_ID)));
+    }
+
+    private void whenTasksQueried(TaskResponseDTO... tasks) {
+        when(taskRepository.findTaskResponses(any(Specification.class), any(Sort.class), anyBoolean()))
+                .thenReturn(List.of(tasks));
+    }
+
+    private static TaskResponseDTO task(UUID id, String title) {
+        return new TaskResponseDTO(id, title, null, ETaskStatus.PENDING, null, LocalDateTime.now(), USER_ID, 0L);
+    }
+
+    private static List<String> titles(List<TaskResponseDTO> tasks) {
+        return tasks.stream().map(TaskResponseDTO::getTitle).toList();
+    }
+}
@@ -0,0 +1,122 @@
+package io.leedsk1y.taskmanagerx_backend.services;
+
+import io.leedsk1y.taskmanagerx_backend.dto.TaskResponseDTO;
+import io.leedsk1y.taskmanagerx_backend.models.ETaskStatus;
+import io.leedsk1y.taskmanagerx_backend.repositories.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TaskSearchIndexTest {
+    private static final UUID USER_A = UUID.randomUUID();
+    private static final UUID USER_B = UUID.randomUUID();
+
+    private TaskRepository taskRepository;
+    private TaskSearchIndex taskSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        taskSearchIndex = new TaskSearchIndex(taskRepository, transactionManager);
+    }
+
+    @Test
+    void diacriticsAndCaseAreFolded() {
+        UUID task = index(USER_A, 0, "Résumé für Zoë", null);
+
+        assertEquals(List.of(task), taskSearchIndex.search(USER_A, "resume", 10));
+        assertEquals(List.of(task), taskSearchIndex.search(USER_A, "RÉSUMÉ FUR zoe", 10));
+    }
+
+    @Test
+    void everyQueryTermMustMatch() {
+        UUID milk = index(USER_A, 0, "Buy milk", null);
+        index(USER_A, 0, "Buy bread", null);
+
+        assertEquals(List.of(milk), taskSearchIndex.search(USER_A, "buy milk", 10));
+        assertEquals(List.of(), taskSearchIndex.search(USER_A, "milk bread", 10));
+    }
+
+    @Test
+    void exactMatchRanksAbovePrefixMatch() {
+        UUID cargo = index(USER_A, 0, "Cargo", null);
+        UUID car = index(USER_A, 0, "Car", null);
+        index(USER_A, 0, "Bicycle", null);
+
+        assertEquals(List.of(car, cargo), taskSearchIndex.search(USER_A, "car", 10));
+        assertEquals(List.of(cargo), taskSearchIndex.search(USER_A, "carg", 10));
+        // single characters only match whole terms
+        assertEquals(List.of(), taskSearchIndex.search(USER_A, "c", 10));
+    }
+
+    @Test
+    void olderVersionDoesNotReplaceNewerOne() {
+        UUID task = UUID.randomUUID();
+        index(task, USER_A, 2, "New title");
+        index(task, USER_A, 1, "Old title");
+
+        assertEquals(List.of(), taskSearchIndex.search(USER_A, "old", 10));
+        assertEquals(List.of(task), taskSearchIndex.search(USER_A, "new", 10));
+
+        index(task, USER_A, 3, "Renamed");
+        assertEquals(List.of(), taskSearchIndex.search(USER_A, "new", 10));
+        assertEquals(List.of(task), taskSearchIndex.search(USER_A, "renamed", 10));
+    }
+
+    @Test
+    void removedTasksAreNotFound() {
+        UUID first = index(USER_A, 0, "Report one", null);
+        UUID second = index(USER_A, 0, "Report two", null);
+
+        taskSearchIndex.onTaskChange(new TaskChangeEvent(USER_A, 1, Set.of(), Set.of(first)));
+        assertEquals(List.of(second), taskSearchIndex.search(USER_A, "report", 10));
+
+        taskSearchIndex.removeFromAll(List.of(second));
+        assertEquals(List.of(), taskSearchIndex.search(USER_A, "report", 10));
+    }
+
+    @Test
+    void searchIsLimitedToTheUserUnlessAllUsersAreSearched() {
+        UUID own = index(USER_A, 0, "Invoice", null);
+        UUID other = index(USER_B, 0, "Invoice", "invoice invoice");
+
+        assertEquals(List.of(own), taskSearchIndex.search(USER_A, "invoice", 10));
+        assertEquals(List.of(other, own), taskSearchIndex.search(null, "invoice", 10));
+        assertEquals(List.of(other), taskSearchIndex.search(null, "invoice", 1));
+    }
+
+    private UUID index(UUID userId, long version, String title, String description) {
+        UUID taskId = UUID.randomUUID();
+        index(new TaskResponseDTO(taskId, title, description, ETaskStatus.PENDING, null, LocalDateTime.now(),
+                userId, version));
+        return taskId;
+    }
+
+    private void index(UUID taskId, UUID userId, long version, String title) {
+        index(new TaskResponseDTO(taskId, title, null, ETaskStatus.PENDING, null, LocalDateTime.now(), userId, version));
+    }
+
+    private void index(TaskResponseDTO task) {
+        when(taskRepository.findTaskResponses(any(Specification.class), any(Sort.class), anyBoolean()))
+                .thenReturn(List.of(task));
+        taskSearchIndex.onTaskChange(new TaskChangeEvent(task.getUserId(), task.getVersion(), Set.of(task.getId()),
+                Set.of()));
+    }
+}
@@ -8,4 +8,32 @@ const api = axios.create({
     withCredentials: true,
 });
 
-export default api;
\ No newline at end of file
+// access tokens are short-lived, renew them once via the refresh cookie and replay the request
+let refreshPromise = null;
+
+api.interceptors.response.use(
+    (response) => response,
+    async (error) => {
+        const originalRequest = error.config;
+        const url = originalRequest?.url || '';
+
+        if (error.response?.status !== 401 || originalRequest._retry
+            || url.includes('/auth/refresh') || url.includes('/auth/login')) {
+            return Promise.reject(error);
+        }
+
+        originalRequest._retry = true;
+
+        try {
+            refreshPromise = refreshPromise || api.post('/auth/refresh').finally(() => {
+                refreshPromise = null;
+            });
+            await refreshPromise;
+            return api(originalRequest);
+        } catch (refreshError) {
+            return Promise.reject(error);
+        }
+    }
+);
+
+export default api;
@@ -10,7 +10,7 @@ function Header() {
 
     const googleImageUrl = user?.profileImage;
     const proxiedImageUrl = googleImageUrl
-        ? `${import.meta.env.VITE_API_BASE_URL}/proxy/image?url=${encodeURIComponent(googleImageUrl)}`
+        ? `${import.meta.env.VITE_API_BASE_URL}/proxy/image?url=${encodeURIComponent(googleImageUrl)}&size=96`
         : null;
 
     return (
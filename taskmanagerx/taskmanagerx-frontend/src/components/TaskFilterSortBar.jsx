@@ -2,7 +2,7 @@ import { useState, useEffect } from "react";
 import { useAuth } from "../context/AuthContext";
 import api from "../api/axios";
 
-const TaskFilterSortBar = ({ setTasks }) => {
+const TaskFilterSortBar = ({ onQueryChange }) => {
     const { user, isAdmin } = useAuth();
 
     const [status, setStatus] = useState("");
@@ -25,35 +25,24 @@ const TaskFilterSortBar = ({ setTasks }) => {
         return date ? `${date}T00:00:00` : null;
     };
 
-    const fetchFilteredTasks = async () => {
-        try {
-            const endpoint = isAdmin ? "/admin/tasks/filter" : "/tasks/filter";
-            const response = await api.get(endpoint, {
-                params: {
-                    userEmail: isAdmin ? userEmail || null : null,
-                    status: status || null,
-                    dueDateBefore: formatDateTime(dueDateBefore),
-                    dueDateAfter: formatDateTime(dueDateAfter),
-                },
-            });
-
-            setTasks(response.data);
-        } catch (error) {
-            console.error("Error filtering tasks:", error);
-        }
+    // the dashboard loads the tasks page by page
+    const fetchFilteredTasks = () => {
+        onQueryChange({
+            endpoint: isAdmin ? "/admin/tasks/filter" : "/tasks/filter",
+            params: {
+                userEmail: isAdmin ? userEmail || null : null,
+                status: status || null,
+                dueDateBefore: formatDateTime(dueDateBefore),
+                dueDateAfter: formatDateTime(dueDateAfter),
+            },
+        });
     };
 
-    const fetchSortedTasks = async () => {
-        try {
-            const endpoint = isAdmin ? "/admin/tasks/sort" : "/tasks/sort";
-            const response = await api.get(endpoint, {
-                params: { sortBy: isAdmin ? sortBy : "dueDate", order: sortOrder },
-            });
-
-            setTasks(response.data);
-        } catch (error) {
-            console.error("Error sorting tasks:", error);
-        }
+    const fetchSortedTasks = () => {
+        onQueryChange({
+            endpoint: isAdmin ? "/admin/tasks/sort" : "/tasks/sort",
+            params: { sortBy: isAdmin ? sortBy : "dueDate", order: sortOrder },
+        });
     };
 
     return (
@@ -1,4 +1,4 @@
-import { useState, useEffect } from "react";
+import { useState, useEffect, useRef } from "react";
 import { Link } from "react-router-dom";
 import { useAuth } from "../context/AuthContext";
 import api from "../api/axios";
@@ -6,24 +6,85 @@ import Header from "../components/Header";
 import TaskFilterSortBar from "../components/TaskFilterSortBar";
 import ConfirmModal from "../components/ConfirmModal";
 
+const PAGE_SIZE = 50;
+
 function Dashboard() {
     const { user, isAuthenticated } = useAuth();
     const [tasks, setTasks] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
+    // read by the event stream handlers, which outlive the render they were created in
+    const nextCursorRef = useRef(null);
+    // endpoint and params chosen in the filter/sort bar, null for the plain list
+    const queryRef = useRef(null);
     const isAdmin = user?.roles.includes("ROLE_ADMIN");
 
     const [isDeleteModalOpen, setIsDeleteModalOpen] = useState(false);
     const [taskToDelete, setTaskToDelete] = useState(null);
 
+    const fetchPage = async (cursor) => {
+        const query = queryRef.current;
+        const endpoint = query?.endpoint ?? (isAdmin ? "/admin/tasks" : "/tasks");
+        const response = await api.get(endpoint, { params: { ...query?.params, limit: PAGE_SIZE, cursor } });
+        return response.data;
+    };
+
+    const updateNextCursor = (cursor) => {
+        nextCursorRef.current = cursor;
+        setNextCursor(cursor);
+    };
+
+    const matchesQuery = (task) => {
+        const params = queryRef.current?.params;
+        if (!params) return true;
+        if (params.status && task.status !== params.status) return false;
+        if (params.dueDateBefore && !(task.dueDate && new Date(task.dueDate) < new Date(params.dueDateBefore))) return false;
+        if (params.dueDateAfter && !(task.dueDate && new Date(task.dueDate) > new Date(params.dueDateAfter))) return false;
+        return true;
+    };
+
+    // patches the loaded tasks instead of reloading them, so pages loaded with "Load More" are kept: changed tasks
+    // are replaced in place, or added at the end once every page is loaded (until then a later page brings them),
+    // and removed tasks as well as tasks that no longer match the filter are dropped
+    const applyChanges = (changed, removed) => {
+        const removedIds = new Set(removed);
+        const changedById = new Map(changed.map(task => [task.id, task]));
+
+        setTasks(previous => {
+            const kept = previous
+                .filter(task => !removedIds.has(task.id))
+                .map(task => changedById.get(task.id) ?? task);
+            const keptIds = new Set(kept.map(task => task.id));
+            const added = nextCursorRef.current ? [] : changed.filter(task => !keptIds.has(task.id));
+
+            return [...kept, ...added].filter(matchesQuery);
+        });
+    };
+
     const fetchTasks = async () => {
         try {
-            const endpoint = isAdmin ? "/admin/tasks" : "/tasks";
-            const response = await api.get(endpoint);
-            setTasks(response.data);
+            const page = await fetchPage(null);
+            setTasks(page.items);
+            updateNextCursor(page.nextCursor);
         } catch (error) {
             console.error("Failed to fetch tasks:", error);
         }
     };
 
+    const fetchMoreTasks = async () => {
+        try {
+            const page = await fetchPage(nextCursor);
+            setTasks(previous => [...previous, ...page.items]);
+            updateNextCursor(page.nextCursor);
+        } catch (error) {
+            console.error("Failed to fetch more tasks:", error);
+        }
+    };
+
+    const handleQueryChange = (query) => {
+        queryRef.current = query;
+        fetchTasks();
+    };
+
     const handleUpdateStatus = async (taskId, currentStatus) => {
         const newStatus = currentStatus === 'PENDING' ? 'COMPLETED' : 'PENDING';
 
@@ -31,7 +92,7 @@ function Dashboard() {
             const response = await api.put(`/tasks/${taskId}/status`, { status: newStatus });
             const updatedTask = response.data;
 
-            setTasks(tasks.map(task =>
+            setTasks(previous => previous.map(task =>
                 task.id === updatedTask.id ? { ...task, status: updatedTask.status } : task
             ));
         } catch (error) {
@@ -39,12 +100,102 @@ function Dashboard() {
         }
     };
 
+    // users' lists are loaded once their event stream is ready, see below
     useEffect(() => {
-        if (isAuthenticated) {
+        if (isAuthenticated && isAdmin) {
             fetchTasks();
         }
     }, [isAuthenticated, isAdmin]);
 
+    useEffect(() => {
+        if (!isAuthenticated || isAdmin) return;
+
+        let events = null;
+        let retryTimer = null;
+        let retryDelay = 1000;
+        let closed = false;
+        let syncToken = null;
+        let catchingUp = null;
+        let pending = false;
+
+        // fetches everything that changed since the last sync token, which also covers events missed while
+        // disconnected; applying a change twice is harmless
+        const catchUp = async () => {
+            try {
+                const response = await api.get('/tasks/changes', { params: { since: syncToken } });
+                syncToken = response.data.nextToken;
+                applyChanges(response.data.changed, response.data.deleted);
+            } catch (error) {
+                if (error.response?.status !== 410) {
+                    console.error("Failed to fetch task changes:", error);
+                    return;
+                }
+                // the token is too old to catch up from: start over with a fresh one
+                if (closed) return;
+                syncToken = null;
+                events.close();
+                connect();
+            }
+        };
+
+        // one catch-up at a time, and one more after it if events arrived meanwhile
+        const scheduleCatchUp = () => {
+            if (catchingUp) {
+                pending = true;
+                return;
+            }
+            catchingUp = catchUp().finally(() => {
+                catchingUp = null;
+                if (pending && !closed) {
+                    pending = false;
+                    scheduleCatchUp();
+                }
+            });
+        };
+
+        const connect = () => {
+            events = new EventSource(`${import.meta.env.VITE_API_BASE_URL}/tasks/events`, { withCredentials: true });
+            events.onopen = () => {
+                retryDelay = 1000;
+            };
+            events.addEventListener("ready", (event) => {
+                if (syncToken) {
+                    scheduleCatchUp();
+                } else {
+                    // first connection: load the list from a point no later than the token
+                    syncToken = JSON.parse(event.data).syncToken;
+                    fetchTasks();
+                }
+            });
+            events.addEventListener("tasks", () => scheduleCatchUp());
+            // the stream ends when the access token expires or the server drops it; EventSource cannot
+            // renew the token itself, so refresh it and reconnect; the ready event then catches up on changes
+            // missed meanwhile
+            events.onerror = () => {
+                events.close();
+                // never connected: show the list without live updates for now
+                if (!syncToken && retryDelay === 1000) fetchTasks();
+                retryTimer = setTimeout(async () => {
+                    try {
+                        await api.post('/auth/refresh');
+                    } catch (error) {
+                        if (error.response?.status === 401) return; // logged out, stay disconnected
+                    }
+                    if (closed) return;
+                    connect();
+                }, retryDelay);
+                retryDelay = Math.min(retryDelay * 2, 30000);
+            };
+        };
+        connect();
+
+        return () => {
+            closed = true;
+            clearTimeout(retryTimer);
+            events.close();
+        };
+    }, [isAuthenticated, isAdmin]);
+
     const handleDeleteClick = (task) => {
         setTaskToDelete(task);
         setIsDeleteModalOpen(true);
@@ -56,7 +207,7 @@ function Dashboard() {
         try {
             const endpoint = isAdmin ? `/admin/tasks/${taskToDelete.id}` : `/tasks/${taskToDelete.id}`;
             await api.delete(endpoint);
-            setTasks(tasks.filter(task => task.id !== taskToDelete.id));
+            setTasks(previous => previous.filter(task => task.id !== taskToDelete.id));
         } catch (error) {
             console.error("Failed to delete task:", error);
         } finally {
@@ -71,7 +222,7 @@ function Dashboard() {
             <div className="p-8 text-center">
                 <h1 className="text-3xl text-gray-700 font-bold mb-6">Dashboard</h1>
 
-                {isAuthenticated && <TaskFilterSortBar setTasks={setTasks} isAdmin={isAdmin} />}
+                {isAuthenticated && <TaskFilterSortBar onQueryChange={handleQueryChange} isAdmin={isAdmin} />}
 
                 <div className="mt-10">
                     {isAuthenticated ? (
@@ -153,6 +304,15 @@ function Dashboard() {
                                         </p>
                                     )}
                                 </div>
+
+                                {nextCursor && (
+                                    <button
+                                        onClick={fetchMoreTasks}
+                                        className="mt-8 px-6 py-3 bg-gray-700 text-white font-semibold rounded-lg hover:bg-gray-900 transition"
+                                    >
+                                        Load More
+                                    </button>
+                                )}
                             </div>
                         </>
                     ) : (